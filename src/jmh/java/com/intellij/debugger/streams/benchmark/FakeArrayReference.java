@@ -0,0 +1,161 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.benchmark;
+
+import com.sun.jdi.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory mirror of an array. Only reading operations are supported
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class FakeArrayReference implements ArrayReference {
+  private final List<Value> myValues;
+
+  public FakeArrayReference(@NotNull List<Value> values) {
+    myValues = Collections.unmodifiableList(values);
+  }
+
+  @NotNull
+  public static FakeArrayReference of(@NotNull Value... values) {
+    return new FakeArrayReference(Arrays.asList(values));
+  }
+
+  @NotNull
+  public static FakeArrayReference ofInts(@NotNull int[] values) {
+    final List<Value> mirrors = new ArrayList<>(values.length);
+    for (final int value : values) {
+      mirrors.add(new FakeIntegerValue(value));
+    }
+
+    return new FakeArrayReference(mirrors);
+  }
+
+  @Override
+  public Value getValue(int index) {
+    return myValues.get(index);
+  }
+
+  @Override
+  public List<Value> getValues() {
+    return myValues;
+  }
+
+  @Override
+  public List<Value> getValues(int index, int length) {
+    return myValues.subList(index, length == -1 ? myValues.size() : index + length);
+  }
+
+  @Override
+  public int length() {
+    return myValues.size();
+  }
+
+  @Override
+  public void setValue(int index, Value value) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setValues(List<? extends Value> values) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setValues(int index, List<? extends Value> values, int srcIndex, int length) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ReferenceType referenceType() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Value getValue(Field field) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Map<Field, Value> getValues(List<? extends Field> fields) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setValue(Field field, Value value) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Value invokeMethod(ThreadReference thread, Method method, List<? extends Value> arguments, int options) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void disableCollection() {
+  }
+
+  @Override
+  public void enableCollection() {
+  }
+
+  @Override
+  public boolean isCollected() {
+    return false;
+  }
+
+  @Override
+  public long uniqueID() {
+    return System.identityHashCode(this);
+  }
+
+  @Override
+  public List<ThreadReference> waitingThreads() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public ThreadReference owningThread() {
+    return null;
+  }
+
+  @Override
+  public int entryCount() {
+    return 0;
+  }
+
+  @Override
+  public List<ObjectReference> referringObjects(long maxReferrers) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Type type() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public VirtualMachine virtualMachine() {
+    throw new UnsupportedOperationException();
+  }
+}
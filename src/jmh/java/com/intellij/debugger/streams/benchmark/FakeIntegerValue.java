@@ -0,0 +1,109 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.benchmark;
+
+import com.sun.jdi.IntegerValue;
+import com.sun.jdi.Type;
+import com.sun.jdi.VirtualMachine;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * In-memory mirror of an int value, so traces can be interpreted without a debuggee
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class FakeIntegerValue implements IntegerValue {
+  private final int myValue;
+
+  public FakeIntegerValue(int value) {
+    myValue = value;
+  }
+
+  @Override
+  public int value() {
+    return myValue;
+  }
+
+  @Override
+  public boolean booleanValue() {
+    return myValue != 0;
+  }
+
+  @Override
+  public byte byteValue() {
+    return (byte)myValue;
+  }
+
+  @Override
+  public char charValue() {
+    return (char)myValue;
+  }
+
+  @Override
+  public short shortValue() {
+    return (short)myValue;
+  }
+
+  @Override
+  public int intValue() {
+    return myValue;
+  }
+
+  @Override
+  public long longValue() {
+    return myValue;
+  }
+
+  @Override
+  public float floatValue() {
+    return myValue;
+  }
+
+  @Override
+  public double doubleValue() {
+    return myValue;
+  }
+
+  @Override
+  public int compareTo(@NotNull IntegerValue other) {
+    return Integer.compare(myValue, other.value());
+  }
+
+  @Override
+  public Type type() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public VirtualMachine virtualMachine() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof IntegerValue && ((IntegerValue)obj).value() == myValue;
+  }
+
+  @Override
+  public int hashCode() {
+    return myValue;
+  }
+
+  @Override
+  public String toString() {
+    return Integer.toString(myValue);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.benchmark;
+
+import com.intellij.debugger.streams.trace.TraceInfo;
+import com.intellij.debugger.streams.trace.impl.interpret.DistinctCallTraceInterpreter;
+import com.intellij.debugger.streams.trace.impl.interpret.SimplePeekCallTraceInterpreter;
+import com.intellij.debugger.streams.wrapper.StreamCall;
+import com.sun.jdi.Value;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding of mirrors received from the debuggee into trace infos
+ *
+ * @author Vitaliy.Bibaev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class InterpreterBenchmark {
+  @Param({"1000", "100000", "1000000", "10000000"})
+  public int size;
+
+  private final SimplePeekCallTraceInterpreter myPeekInterpreter = new SimplePeekCallTraceInterpreter();
+  private final DistinctCallTraceInterpreter myDistinctInterpreter = new DistinctCallTraceInterpreter();
+
+  private StreamCall myPeekCall;
+  private StreamCall myDistinctCall;
+  private Value myPeekTrace;
+  private Value myDistinctTrace;
+
+  @Setup
+  public void setUp() {
+    final SyntheticStreamChain chain = new SyntheticStreamChain(Arrays.asList("map", "distinct"), "collect");
+    myPeekCall = chain.getCall(0);
+    myDistinctCall = chain.getCall(1);
+
+    final List<Value> values = SyntheticTraces.values(size);
+    myPeekTrace = SyntheticTraces.peekTrace(values, 0, chain.length() + 1);
+    myDistinctTrace = SyntheticTraces.distinctTrace(values, 1, chain.length() + 1);
+  }
+
+  @Benchmark
+  public TraceInfo peek() {
+    return myPeekInterpreter.resolve(myPeekCall, myPeekTrace);
+  }
+
+  @Benchmark
+  public TraceInfo distinct() {
+    return myDistinctInterpreter.resolve(myDistinctCall, myDistinctTrace);
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.benchmark;
+
+import com.intellij.debugger.streams.resolve.*;
+import com.intellij.debugger.streams.trace.TraceInfo;
+import com.intellij.debugger.streams.trace.impl.interpret.DistinctCallTraceInterpreter;
+import com.intellij.debugger.streams.trace.impl.interpret.SimplePeekCallTraceInterpreter;
+import com.intellij.debugger.streams.wrapper.StreamCall;
+import com.sun.jdi.Value;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building of mappings between values before and after a call for every values order resolver
+ *
+ * @author Vitaliy.Bibaev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class ResolverBenchmark {
+  @Param({"1000", "100000", "1000000", "10000000"})
+  public int size;
+
+  @Param({"map", "filter", "flatMap", "sorted", "distinct", "allMatch", "findFirst", "collect", "unknown",
+    "append", "prepend", "collapse", "intervalMap", "pairMap"})
+  public String call;
+
+  private ValuesOrderResolver myResolver;
+  private TraceInfo myInfo;
+
+  @Setup
+  public void setUp() {
+    final StreamCall streamCall = new SyntheticStreamChain(Collections.singletonList(call), "collect").getCall(0);
+    final List<Value> values = SyntheticTraces.values(size);
+    myResolver = createResolver(call);
+    switch (call) {
+      case "distinct":
+        myInfo = new DistinctCallTraceInterpreter().resolve(streamCall, SyntheticTraces.distinctTrace(values, 0, 2));
+        break;
+      case "findFirst":
+        myInfo = new SimplePeekCallTraceInterpreter().resolve(streamCall, SyntheticTraces.optionalTrace(values));
+        break;
+      default:
+        myInfo = new SimplePeekCallTraceInterpreter().resolve(streamCall, SyntheticTraces.peekTrace(values, 0, 2));
+    }
+  }
+
+  @Benchmark
+  public ValuesOrderResolver.Result resolve() {
+    return myResolver.resolve(myInfo);
+  }
+
+  @NotNull
+  private static ValuesOrderResolver createResolver(@NotNull String callName) {
+    switch (callName) {
+      case "map":
+        return new MapResolver();
+      case "filter":
+        return new FilterResolver();
+      case "flatMap":
+        return new FlatMapResolver();
+      case "sorted":
+        return new IdentityResolver();
+      case "distinct":
+        return new DistinctResolver();
+      case "allMatch":
+        return new AllToResultResolver();
+      case "findFirst":
+        return new OptionalOrderResolver();
+      case "collect":
+        return new IdentityResolver();
+      case "append":
+        return new AppendResolver();
+      case "prepend":
+        return new PrependResolver();
+      case "collapse":
+        return new CollapseResolver();
+      case "intervalMap":
+        return new IntervalMapResolver();
+      case "pairMap":
+        return new PairMapResolver();
+      default:
+        return new EmptyResolver();
+    }
+  }
+}
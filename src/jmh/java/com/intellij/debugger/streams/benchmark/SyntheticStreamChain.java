@@ -0,0 +1,105 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.benchmark;
+
+import com.intellij.debugger.streams.trace.dsl.impl.java.JavaTypes;
+import com.intellij.debugger.streams.trace.impl.handler.type.GenericType;
+import com.intellij.debugger.streams.wrapper.*;
+import com.intellij.debugger.streams.wrapper.impl.IntermediateStreamCallImpl;
+import com.intellij.debugger.streams.wrapper.impl.QualifierExpressionImpl;
+import com.intellij.debugger.streams.wrapper.impl.TerminatorStreamCallImpl;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Stream chain which is not backed by PSI
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class SyntheticStreamChain implements StreamChain {
+  private static final GenericType ELEMENT_TYPE = JavaTypes.INSTANCE.getANY();
+
+  private final QualifierExpression myQualifier;
+  private final List<IntermediateStreamCall> myIntermediateCalls = new ArrayList<>();
+  private final TerminatorStreamCall myTerminator;
+
+  public SyntheticStreamChain(@NotNull List<String> intermediateCalls, @NotNull String terminatorCall) {
+    myQualifier = new QualifierExpressionImpl("source", TextRange.EMPTY_RANGE, ELEMENT_TYPE);
+    for (final String name : intermediateCalls) {
+      myIntermediateCalls.add(new IntermediateStreamCallImpl(name, Collections.emptyList(), ELEMENT_TYPE, ELEMENT_TYPE,
+                                                             TextRange.EMPTY_RANGE));
+    }
+
+    myTerminator = new TerminatorStreamCallImpl(terminatorCall, Collections.emptyList(), ELEMENT_TYPE, ELEMENT_TYPE,
+                                                TextRange.EMPTY_RANGE);
+  }
+
+  @NotNull
+  @Override
+  public QualifierExpression getQualifierExpression() {
+    return myQualifier;
+  }
+
+  @NotNull
+  @Override
+  public List<IntermediateStreamCall> getIntermediateCalls() {
+    return myIntermediateCalls;
+  }
+
+  @NotNull
+  @Override
+  public StreamCall getCall(int index) {
+    return index < myIntermediateCalls.size() ? myIntermediateCalls.get(index) : myTerminator;
+  }
+
+  @NotNull
+  @Override
+  public TerminatorStreamCall getTerminationCall() {
+    return myTerminator;
+  }
+
+  @NotNull
+  @Override
+  public String getText() {
+    return getCompactText();
+  }
+
+  @NotNull
+  @Override
+  public String getCompactText() {
+    final StringJoiner joiner = new StringJoiner(".");
+    joiner.add(myQualifier.getText());
+    myIntermediateCalls.forEach(call -> joiner.add(call.getName() + "()"));
+    return joiner.add(myTerminator.getName() + "()").toString();
+  }
+
+  @Override
+  public int length() {
+    return myIntermediateCalls.size() + 1;
+  }
+
+  @NotNull
+  @Override
+  public PsiElement getContext() {
+    throw new UnsupportedOperationException("synthetic chain has no PSI context");
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.benchmark;
+
+import com.sun.jdi.Value;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds mirrors in the format produced by the evaluated trace expression.
+ * <p>
+ * Element {@code i} passes the stage {@code k} of a chain at the time {@code i * stagesCount + k}, its value is {@code i}
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class SyntheticTraces {
+  private SyntheticTraces() {}
+
+  @NotNull
+  public static List<Value> values(int size) {
+    final List<Value> result = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      result.add(new FakeIntegerValue(i));
+    }
+
+    return result;
+  }
+
+  /**
+   * @return [before, after], where both sides are [times, values]
+   */
+  @NotNull
+  public static Value peekTrace(@NotNull List<Value> values, int stage, int stagesCount) {
+    final FakeArrayReference valuesArray = new FakeArrayReference(values);
+    return FakeArrayReference.of(FakeArrayReference.of(FakeArrayReference.ofInts(times(values.size(), stage, stagesCount)), valuesArray),
+                                 FakeArrayReference.of(FakeArrayReference.ofInts(times(values.size(), stage + 1, stagesCount)), valuesArray));
+  }
+
+  /**
+   * @return [peekTrace, [beforeTimes, afterTimes]] for a distinct call which keeps all elements
+   */
+  @NotNull
+  public static Value distinctTrace(@NotNull List<Value> values, int stage, int stagesCount) {
+    final Value peekTrace = peekTrace(values, stage, stagesCount);
+    final Value mapping = FakeArrayReference.of(FakeArrayReference.ofInts(times(values.size(), stage, stagesCount)),
+                                                FakeArrayReference.ofInts(times(values.size(), stage + 1, stagesCount)));
+    return FakeArrayReference.of(peekTrace, mapping);
+  }
+
+  /**
+   * @return a peek trace of a call like findFirst: the only value after the call is the first one
+   */
+  @NotNull
+  public static Value optionalTrace(@NotNull List<Value> values) {
+    final Value before = FakeArrayReference.of(FakeArrayReference.ofInts(times(values.size(), 0, 2)), new FakeArrayReference(values));
+    final Value after = values.isEmpty()
+                        ? FakeArrayReference.of(FakeArrayReference.ofInts(new int[0]), FakeArrayReference.of())
+                        : FakeArrayReference.of(FakeArrayReference.ofInts(new int[]{1}), FakeArrayReference.of(values.get(0)));
+    return FakeArrayReference.of(before, after);
+  }
+
+  @NotNull
+  private static int[] times(int size, int stage, int stagesCount) {
+    final int[] result = new int[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = i * stagesCount + stage;
+    }
+
+    return result;
+  }
+}
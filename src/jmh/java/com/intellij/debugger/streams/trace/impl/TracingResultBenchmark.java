@@ -0,0 +1,78 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.impl;
+
+import com.intellij.debugger.streams.benchmark.SyntheticStreamChain;
+import com.intellij.debugger.streams.benchmark.SyntheticTraces;
+import com.intellij.debugger.streams.lib.ResolverFactory;
+import com.intellij.debugger.streams.lib.impl.StandardLibrarySupport;
+import com.intellij.debugger.streams.trace.PinnedTraceValues;
+import com.intellij.debugger.streams.trace.ResolvedTracingResult;
+import com.intellij.debugger.streams.trace.TraceInfo;
+import com.intellij.debugger.streams.trace.impl.interpret.DistinctCallTraceInterpreter;
+import com.intellij.debugger.streams.trace.impl.interpret.SimplePeekCallTraceInterpreter;
+import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.sun.jdi.Value;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving of an interpreted trace of the whole chain {@code source.map().filter().distinct().sorted().collect()}
+ *
+ * @author Vitaliy.Bibaev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class TracingResultBenchmark {
+  @Param({"1000", "100000", "1000000", "10000000"})
+  public int size;
+
+  private final ResolverFactory myResolverFactory = new StandardLibrarySupport().getResolverFactory();
+  private TracingResultImpl myResult;
+
+  @Setup
+  public void setUp() {
+    final StreamChain chain = new SyntheticStreamChain(Arrays.asList("map", "filter", "distinct", "sorted"), "collect");
+    final int stagesCount = chain.length() + 1;
+    final List<Value> values = SyntheticTraces.values(size);
+
+    final SimplePeekCallTraceInterpreter peekInterpreter = new SimplePeekCallTraceInterpreter();
+    final DistinctCallTraceInterpreter distinctInterpreter = new DistinctCallTraceInterpreter();
+    final List<TraceInfo> trace = new ArrayList<>();
+    for (int i = 0; i < chain.length(); i++) {
+      trace.add("distinct".equals(chain.getCall(i).getName())
+                ? distinctInterpreter.resolve(chain.getCall(i), SyntheticTraces.distinctTrace(values, i, stagesCount))
+                : peekInterpreter.resolve(chain.getCall(i), SyntheticTraces.peekTrace(values, i, stagesCount)));
+    }
+
+    myResult = new TracingResultImpl(chain, TraceElementImpl.ofResultValue(null), trace, false, Collections.emptyList(), null,
+                                     Collections.emptyList(), Collections.emptyList(), new PinnedTraceValues());
+  }
+
+  @Benchmark
+  public ResolvedTracingResult resolve() {
+    return myResult.resolve(myResolverFactory);
+  }
+}
@@ -23,6 +23,7 @@ import com.intellij.debugger.streams.lib.LibrarySupportProvider;
 import com.intellij.debugger.streams.psi.DebuggerPositionResolver;
 import com.intellij.debugger.streams.psi.impl.DebuggerPositionResolverImpl;
 import com.intellij.debugger.streams.trace.*;
+import com.intellij.debugger.streams.trace.impl.IncrementalTraceResolver;
 import com.intellij.debugger.streams.trace.impl.TraceResultInterpreterImpl;
 import com.intellij.debugger.streams.ui.ChooserOption;
 import com.intellij.debugger.streams.ui.impl.ElementChooserImpl;
@@ -34,6 +35,7 @@ import com.intellij.lang.java.JavaLanguage;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.Presentation;
+import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
@@ -46,6 +48,7 @@ import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.ui.MessageType;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.util.PsiEditorUtil;
 import com.intellij.util.PlatformUtils;
 import com.intellij.xdebugger.XDebugSession;
@@ -55,6 +58,8 @@ import one.util.streamex.StreamEx;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -72,6 +77,7 @@ public class TraceStreamAction extends AnAction {
   private final List<SupportedLibrary> mySupportedLibraries =
     LibrarySupportProvider.getList().stream().map(SupportedLibrary::new).collect(Collectors.toList());
   private final Set<String> mySupportedLanguages = StreamEx.of(mySupportedLibraries).map(x -> x.languageId).toSet();
+  private volatile MyChainsCheck myLastCheck = null;
 
   @Override
   public void update(@NotNull AnActionEvent e) {
@@ -86,7 +92,7 @@ public class TraceStreamAction extends AnAction {
       final Language language = element.getLanguage();
       if (mySupportedLanguages.contains(language.getID()) && isActionEnabled(language)) {
         presentation.setVisible(true);
-        presentation.setEnabled(isChainExists(element));
+        presentation.setEnabled(isChainExistsCached(element, e.getInputEvent() != null));
       }
       else {
         presentation.setEnabledAndVisible(false);
@@ -136,6 +142,36 @@ public class TraceStreamAction extends AnAction {
     }
   }
 
+  /**
+   * Search of a chain resolves the calls around the element, which is too slow for every update of the toolbar.
+   * So the search is performed once per element and modification of its file on a pooled thread,
+   * and the action is disabled until the answer is ready. Explicit invocations of the action wait for the answer
+   */
+  private boolean isChainExistsCached(@NotNull PsiElement element, boolean isExplicitInvocation) {
+    final PsiFile file = element.getContainingFile();
+    final long modificationStamp = file == null ? -1 : file.getModificationStamp();
+    final MyChainsCheck lastCheck = myLastCheck;
+    if (lastCheck != null && lastCheck.isFor(element, modificationStamp) && (lastCheck.isDone() || !isExplicitInvocation)) {
+      return lastCheck.isChainExists();
+    }
+
+    final MyChainsCheck check = new MyChainsCheck(element, modificationStamp);
+    myLastCheck = check;
+    if (isExplicitInvocation) {
+      check.setChainExists(isChainExists(element));
+      return check.isChainExists();
+    }
+
+    final Application application = ApplicationManager.getApplication();
+    application.executeOnPooledThread(() -> application.runReadAction(() -> {
+      if (myLastCheck == check && element.isValid()) {
+        check.setChainExists(isChainExists(element));
+      }
+    }));
+
+    return false;
+  }
+
   private boolean isChainExists(@NotNull PsiElement element) {
     for (final SupportedLibrary library : mySupportedLibraries) {
       if (element.getLanguage().getID().equals(library.languageId) && library.builder.isChainExists(element)) {
@@ -153,12 +189,27 @@ public class TraceStreamAction extends AnAction {
     final TraceExpressionBuilder expressionBuilder = library.createExpressionBuilder(project);
     final TraceResultInterpreterImpl resultInterpreter = new TraceResultInterpreterImpl(library.librarySupport.getInterpreterFactory());
     final StreamTracer tracer = new EvaluateExpressionTracer(session, expressionBuilder, resultInterpreter);
+    window.setCancelTracingAction(tracer::cancel);
+    final IncrementalTraceResolver resolver = new IncrementalTraceResolver(chain, library.librarySupport.getResolverFactory());
     tracer.trace(chain, new TracingCallback() {
+      @Override
+      public void callInterpreted(@NotNull TraceInfo trace, @NotNull EvaluationContextImpl context) {
+        resolver.addTrace(trace, state -> ApplicationManager.getApplication().invokeLater(() -> window.addState(state, context)));
+      }
+
       @Override
       public void evaluated(@NotNull TracingResult result, @NotNull EvaluationContextImpl context) {
-        final ResolvedTracingResult resolvedTrace = result.resolve(library.librarySupport.getResolverFactory());
-        ApplicationManager.getApplication()
-          .invokeLater(() -> window.setTrace(resolvedTrace, context));
+        window.keepPinned(result.getPinnedValues(), context);
+        resolver.finish(result).whenComplete((resolvedTrace, error) -> {
+          if (error != null) {
+            LOG.error("Cannot resolve trace", error);
+            notifyUI("Cannot resolve trace. " + error.getMessage());
+          }
+          else {
+            ApplicationManager.getApplication()
+              .invokeLater(() -> window.setTrace(resolvedTrace, context));
+          }
+        });
       }
 
       @Override
@@ -201,6 +252,36 @@ public class TraceStreamAction extends AnAction {
     return false;
   }
 
+  /**
+   * The action outlives projects, so the element is referenced weakly to not keep PSI of a closed project
+   */
+  private static class MyChainsCheck {
+    private final Reference<PsiElement> myElement;
+    private final long myModificationStamp;
+    private volatile Boolean myIsChainExists = null;
+
+    MyChainsCheck(@NotNull PsiElement element, long modificationStamp) {
+      myElement = new WeakReference<>(element);
+      myModificationStamp = modificationStamp;
+    }
+
+    boolean isFor(@NotNull PsiElement element, long modificationStamp) {
+      return myElement.get() == element && myModificationStamp == modificationStamp;
+    }
+
+    boolean isDone() {
+      return myIsChainExists != null;
+    }
+
+    boolean isChainExists() {
+      return Boolean.TRUE.equals(myIsChainExists);
+    }
+
+    void setChainExists(boolean isChainExists) {
+      myIsChainExists = isChainExists;
+    }
+  }
+
   private static class MyStreamChainChooser extends ElementChooserImpl<StreamChainOption> {
     MyStreamChainChooser(@NotNull Editor editor) {
       super(editor);
@@ -31,7 +31,7 @@ import com.intellij.debugger.streams.wrapper.TerminatorStreamCall
 class DefaultLibrarySupport : LibrarySupport {
   override fun createHandlerFactory(dsl: Dsl): HandlerFactory = object : HandlerFactory {
     override fun getForIntermediate(number: Int, call: IntermediateStreamCall): IntermediateCallHandler {
-      return PeekTraceHandler(number, call.name, call.typeBefore, call.typeAfter, dsl)
+      return PeekTraceHandler.create(number, call.name, call.typeBefore, call.typeAfter, dsl)
     }
 
     override fun getForTermination(call: TerminatorStreamCall, resultExpression: String): TerminatorCallHandler {
@@ -40,14 +40,18 @@ class DefaultLibrarySupport : LibrarySupport {
   }
 
   override val interpreterFactory: InterpreterFactory = object : InterpreterFactory {
+    private val myInterpreter = SimplePeekCallTraceInterpreter()
+
     override fun getInterpreter(callName: String): CallTraceInterpreter {
-      return SimplePeekCallTraceInterpreter()
+      return myInterpreter
     }
   }
 
   override val resolverFactory: ResolverFactory = object : ResolverFactory {
+    private val myResolver = EmptyResolver()
+
     override fun getResolver(callName: String): ValuesOrderResolver {
-      return EmptyResolver()
+      return myResolver
     }
   }
 }
\ No newline at end of file
@@ -28,23 +28,33 @@ import com.intellij.debugger.streams.wrapper.IntermediateStreamCall
  * @author Vitaliy.Bibaev
  */
 
+// interpreters and resolvers do not have a state, so operations share them
+private val PEEK_INTERPRETER = SimplePeekCallTraceInterpreter()
+private val DISTINCT_INTERPRETER = DistinctCallTraceInterpreter()
+private val FILTER_RESOLVER = FilterResolver()
+private val MAP_RESOLVER = MapResolver()
+private val FLAT_MAP_RESOLVER = FlatMapResolver()
+private val IDENTITY_RESOLVER = IdentityResolver()
+private val DISTINCT_RESOLVER = DistinctResolver()
+private val COLLAPSE_RESOLVER = CollapseResolver()
+
 open class OrderBasedOperation(name: String, orderResolver: ValuesOrderResolver)
   : IntermediateOperationBase(name,
-                              { num, call, dsl -> PeekTraceHandler(num, call.name, call.typeBefore, call.typeAfter, dsl) },
-                              SimplePeekCallTraceInterpreter(),
+                              { num, call, dsl -> PeekTraceHandler.create(num, call.name, call.typeBefore, call.typeAfter, dsl) },
+                              PEEK_INTERPRETER,
                               orderResolver)
 
-class FilterOperation(name: String) : OrderBasedOperation(name, FilterResolver())
-class MappingOperation(name: String) : OrderBasedOperation(name, MapResolver())
-class FlatMappingOperation(name: String) : OrderBasedOperation(name, FlatMapResolver())
-class SortedOperation(name: String) : OrderBasedOperation(name, IdentityResolver())
+class FilterOperation(name: String) : OrderBasedOperation(name, FILTER_RESOLVER)
+class MappingOperation(name: String) : OrderBasedOperation(name, MAP_RESOLVER)
+class FlatMappingOperation(name: String) : OrderBasedOperation(name, FLAT_MAP_RESOLVER)
+class SortedOperation(name: String) : OrderBasedOperation(name, IDENTITY_RESOLVER)
 
 class DistinctOperation(name: String, handlerFactory: (Int, IntermediateStreamCall, Dsl) -> IntermediateCallHandler)
-  : IntermediateOperationBase(name, handlerFactory, DistinctCallTraceInterpreter(), DistinctResolver())
+  : IntermediateOperationBase(name, handlerFactory, DISTINCT_INTERPRETER, DISTINCT_RESOLVER)
 
 class ParallelOperation(name: String) : IntermediateOperationBase(name,
                                                                             { num, call, dsl -> ParallelHandler(num, call, dsl) },
-                                                                            SimplePeekCallTraceInterpreter(), FilterResolver())
+                                                                            PEEK_INTERPRETER, FILTER_RESOLVER)
 
 class ConcatOperation(name: String, orderResolver: ValuesOrderResolver) : OrderBasedOperation(name, orderResolver)
-class CollapseOperation(name: String) : OrderBasedOperation(name, CollapseResolver())
\ No newline at end of file
+class CollapseOperation(name: String) : OrderBasedOperation(name, COLLAPSE_RESOLVER)
\ No newline at end of file
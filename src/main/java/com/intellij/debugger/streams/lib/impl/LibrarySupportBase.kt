@@ -35,48 +35,75 @@ abstract class LibrarySupportBase(private val compatibleLibrary: LibrarySupport
   private val mySupportedIntermediateOperations: MutableMap<String, IntermediateOperation> = mutableMapOf()
   private val mySupportedTerminalOperations: MutableMap<String, TerminalOperation> = mutableMapOf()
 
+  // operations of the compatible libraries are merged into immutable tables on the first use,
+  // when the subclasses have already added their operations, so every call is dispatched by one lookup
+  private val myDispatchTable: MyDispatchTable by lazy { createDispatchTable() }
+
   final override fun createHandlerFactory(dsl: Dsl): HandlerFactory {
-    val compatibleLibraryFactory = compatibleLibrary.createHandlerFactory(dsl)
+    val table = myDispatchTable
+    val fallbackFactory = table.fallbackLibrary.createHandlerFactory(dsl)
     return object : HandlerFactory {
       override fun getForIntermediate(number: Int, call: IntermediateStreamCall): IntermediateCallHandler {
-        val operation = mySupportedIntermediateOperations[call.name]
-        return operation?.getTraceHandler(number, call, dsl)
-               ?: compatibleLibraryFactory.getForIntermediate(number, call)
+        return table.intermediateOperations[call.name]?.getTraceHandler(number, call, dsl)
+               ?: fallbackFactory.getForIntermediate(number, call)
       }
 
       override fun getForTermination(call: TerminatorStreamCall, resultExpression: String): TerminatorCallHandler {
-        val terminalOperation = mySupportedTerminalOperations[call.name]
-        return terminalOperation?.getTraceHandler(call, resultExpression, dsl)
-               ?: compatibleLibraryFactory.getForTermination(call, resultExpression)
+        return table.terminalOperations[call.name]?.getTraceHandler(call, resultExpression, dsl)
+               ?: fallbackFactory.getForTermination(call, resultExpression)
       }
     }
   }
 
   final override val interpreterFactory: InterpreterFactory = object : InterpreterFactory {
     override fun getInterpreter(callName: String): CallTraceInterpreter {
-      val operation = findOperationByName(callName)
-      return operation?.traceInterpreter
-             ?: compatibleLibrary.interpreterFactory.getInterpreter(callName)
+      val table = myDispatchTable
+      return table.operations[callName]?.traceInterpreter
+             ?: table.fallbackLibrary.interpreterFactory.getInterpreter(callName)
     }
   }
 
   final override val resolverFactory: ResolverFactory = object : ResolverFactory {
     override fun getResolver(callName: String): ValuesOrderResolver {
-      val operation = findOperationByName(callName)
-      return operation?.valuesOrderResolver
-             ?: compatibleLibrary.resolverFactory.getResolver(callName)
+      val table = myDispatchTable
+      return table.operations[callName]?.valuesOrderResolver
+             ?: table.fallbackLibrary.resolverFactory.getResolver(callName)
     }
   }
 
+  /**
+   * Should be called only from constructors of subclasses
+   */
   protected fun addIntermediateOperationsSupport(vararg operations: IntermediateOperation) {
     operations.forEach { mySupportedIntermediateOperations[it.name] = it }
   }
 
+  /**
+   * Should be called only from constructors of subclasses
+   */
   protected fun addTerminationOperationsSupport(vararg operations: TerminalOperation) {
     operations.forEach { mySupportedTerminalOperations[it.name] = it }
   }
 
-  private fun findOperationByName(name: String): Operation? =
-    mySupportedIntermediateOperations[name] ?: mySupportedTerminalOperations[name]
+  private fun createDispatchTable(): MyDispatchTable {
+    val compatible = compatibleLibrary
+    val compatibleTable = if (compatible is LibrarySupportBase) compatible.myDispatchTable
+    else MyDispatchTable(compatible, emptyMap(), emptyMap(), emptyMap())
+
+    // operations of this library override ones of the compatible library, intermediate operations override terminal ones
+    val operations = HashMap<String, Operation>(compatibleTable.operations)
+    operations.putAll(mySupportedTerminalOperations)
+    operations.putAll(mySupportedIntermediateOperations)
+
+    return MyDispatchTable(compatibleTable.fallbackLibrary,
+                           compatibleTable.intermediateOperations + mySupportedIntermediateOperations,
+                           compatibleTable.terminalOperations + mySupportedTerminalOperations,
+                           operations)
+  }
+
+  private class MyDispatchTable(val fallbackLibrary: LibrarySupport,
+                                val intermediateOperations: Map<String, IntermediateOperation>,
+                                val terminalOperations: Map<String, TerminalOperation>,
+                                val operations: Map<String, Operation>)
 
 }
\ No newline at end of file
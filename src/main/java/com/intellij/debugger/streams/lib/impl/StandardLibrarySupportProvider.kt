@@ -1,6 +1,7 @@
 // Copyright 2000-2017 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package com.intellij.debugger.streams.lib.impl
 
+import com.intellij.debugger.streams.lib.HandlerFactory
 import com.intellij.debugger.streams.lib.LibrarySupport
 import com.intellij.debugger.streams.lib.LibrarySupportProvider
 import com.intellij.debugger.streams.psi.impl.JavaChainTransformerImpl
@@ -21,12 +22,13 @@ class StandardLibrarySupportProvider : LibrarySupportProvider {
     val builder: StreamChainBuilder = JavaStreamChainBuilder(JavaChainTransformerImpl(), "java.util.stream")
     val support: LibrarySupport = StandardLibrarySupport()
     val dsl: Dsl = DslImpl(JavaStatementFactory())
+    val handlerFactory: HandlerFactory = support.createHandlerFactory(dsl)
   }
 
   override fun getLanguageId(): String = "JAVA"
 
   override fun getExpressionBuilder(project: Project): TraceExpressionBuilder =
-    JavaTraceExpressionBuilder(project, support.createHandlerFactory(dsl))
+    JavaTraceExpressionBuilder(project, handlerFactory)
 
   override fun getChainBuilder(): StreamChainBuilder = builder
 
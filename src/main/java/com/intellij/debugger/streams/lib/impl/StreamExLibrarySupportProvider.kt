@@ -1,6 +1,7 @@
 // Copyright 2000-2017 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package com.intellij.debugger.streams.lib.impl
 
+import com.intellij.debugger.streams.lib.HandlerFactory
 import com.intellij.debugger.streams.lib.LibrarySupport
 import com.intellij.debugger.streams.lib.LibrarySupportProvider
 import com.intellij.debugger.streams.psi.impl.JavaChainTransformerImpl
@@ -16,12 +17,16 @@ import com.intellij.openapi.project.Project
  * @author Vitaliy.Bibaev
  */
 class StreamExLibrarySupportProvider : LibrarySupportProvider {
+  private companion object {
+    val handlerFactory: HandlerFactory = StreamExLibrarySupport().createHandlerFactory(DslImpl(JavaStatementFactory()))
+  }
+
   override fun getLanguageId(): String = "JAVA"
 
   override fun getLibrarySupport(): LibrarySupport = StreamExLibrarySupport()
 
   override fun getExpressionBuilder(project: Project): TraceExpressionBuilder =
-    JavaTraceExpressionBuilder(project, librarySupport.createHandlerFactory(DslImpl(JavaStatementFactory())))
+    JavaTraceExpressionBuilder(project, handlerFactory)
 
   override fun getChainBuilder(): StreamChainBuilder = JavaStreamChainBuilder(JavaChainTransformerImpl(), "one.util.streamex")
 }
\ No newline at end of file
@@ -29,13 +29,20 @@ import com.intellij.debugger.streams.trace.impl.interpret.OptionalTraceInterpret
  * @author Vitaliy.Bibaev
  */
 
+// interpreters and resolvers do not have a state, so operations share them
+private val ALL_TO_RESULT_RESOLVER = AllToResultResolver()
+private val OPTIONAL_INTERPRETER = OptionalTraceInterpreter()
+private val OPTIONAL_RESOLVER = OptionalOrderResolver()
+private val COLLECT_INTERPRETER = CollectIdentityTraceInterpreter()
+private val IDENTITY_RESOLVER = IdentityResolver()
+
 class MatchingOperation(name: String, interpreter: CallTraceInterpreter)
-  : TerminalOperationBase(name, { call, _, dsl -> MatchHandler(call, dsl) }, interpreter, AllToResultResolver())
+  : TerminalOperationBase(name, { call, _, dsl -> MatchHandler(call, dsl) }, interpreter, ALL_TO_RESULT_RESOLVER)
 
 class OptionalResultOperation(name: String)
   : TerminalOperationBase(name, { call, expr, dsl -> OptionalTerminationHandler(call, expr, dsl) },
-                          OptionalTraceInterpreter(), OptionalOrderResolver())
+                          OPTIONAL_INTERPRETER, OPTIONAL_RESOLVER)
 
 class ToCollectionOperation(name: String)
   : TerminalOperationBase(name, { call, _, dsl -> ToCollectionHandler(call, dsl) },
-                          CollectIdentityTraceInterpreter(), IdentityResolver())
\ No newline at end of file
+                          COLLECT_INTERPRETER, IDENTITY_RESOLVER)
\ No newline at end of file
@@ -15,12 +15,16 @@
  */
 package com.intellij.debugger.streams.psi;
 
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.*;
 import com.intellij.psi.util.InheritanceUtil;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @author Vitaliy.Bibaev
  */
@@ -29,36 +33,41 @@ public class StreamApiUtil {
   }
 
   public static boolean isStreamCall(@NotNull PsiMethodCallExpression expression) {
-    return isIntermediateStreamCall(expression) || isProducerStreamCall(expression) || isTerminationStreamCall(expression);
+    return classify(expression).isStreamCall();
   }
 
   public static boolean isProducerStreamCall(@NotNull PsiMethodCallExpression expression) {
-    final PsiMethod method = expression.resolveMethod();
-
-    return (method != null && method.hasModifierProperty(PsiModifier.STATIC)) ||
-           checkStreamCall(expression, false, true);
-  }
-
-  private static boolean isIntermediateStreamCall(@NotNull PsiMethodCallExpression expression) {
-    return checkStreamCall(expression, true, true);
+    return classify(expression).isProducer;
   }
 
   public static boolean isTerminationStreamCall(@NotNull PsiMethodCallExpression expression) {
-    return checkStreamCall(expression, true, false);
+    return classify(expression).isTermination;
   }
 
-  private static boolean checkStreamCall(@NotNull PsiMethodCallExpression expression,
-                                         boolean mustParentBeStream,
-                                         boolean mustResultBeStream) {
+  /**
+   * Resolves the method once and checks all the kinds of the stream call
+   */
+  @NotNull
+  private static CallKind classify(@NotNull PsiMethodCallExpression expression) {
     final PsiMethod method = expression.resolveMethod();
-    if (method != null && mustResultBeStream == isStreamType(expression.getType())) {
-      final PsiElement methodClass = method.getParent();
-      if (methodClass instanceof PsiClass) {
-        return mustParentBeStream == isStreamType((PsiClass)methodClass);
-      }
+    if (method == null) {
+      return CallKind.NONE;
+    }
+
+    final boolean isStatic = method.hasModifierProperty(PsiModifier.STATIC);
+    final PsiElement methodClass = method.getParent();
+    if (!(methodClass instanceof PsiClass)) {
+      return isStatic ? new CallKind(true, false, false, "") : CallKind.NONE;
     }
 
-    return false;
+    final boolean isResultStream = isStreamType(expression.getType());
+    final boolean isParentStream = isStreamType((PsiClass)methodClass);
+    final String className = ((PsiClass)methodClass).getQualifiedName();
+    final String packageName = className == null ? "" : StringUtil.getPackageName(className);
+    return new CallKind(isStatic || (!isParentStream && isResultStream),
+                        isParentStream && isResultStream,
+                        isParentStream && !isResultStream,
+                        packageName);
   }
 
   @Contract("null -> false")
@@ -70,4 +79,57 @@ public class StreamApiUtil {
   private static boolean isStreamType(@Nullable PsiClass psiClass) {
     return InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_UTIL_STREAM_BASE_STREAM);
   }
+
+  /**
+   * Caches kinds of the visited calls, so every call is resolved only once.
+   * Should not outlive modifications of PSI
+   */
+  public static class CallsClassifier {
+    private final Map<PsiMethodCallExpression, CallKind> myKinds = new ConcurrentHashMap<>();
+
+    public boolean isStreamCall(@NotNull PsiMethodCallExpression expression) {
+      return getKind(expression).isStreamCall();
+    }
+
+    public boolean isProducerStreamCall(@NotNull PsiMethodCallExpression expression) {
+      return getKind(expression).isProducer;
+    }
+
+    public boolean isTerminationStreamCall(@NotNull PsiMethodCallExpression expression) {
+      return getKind(expression).isTermination;
+    }
+
+    /**
+     * Returns package of the class declaring the called method, or an empty string if the method is not resolved
+     */
+    @NotNull
+    public String getPackageName(@NotNull PsiMethodCallExpression expression) {
+      return getKind(expression).packageName;
+    }
+
+    @NotNull
+    private CallKind getKind(@NotNull PsiMethodCallExpression expression) {
+      return myKinds.computeIfAbsent(expression, StreamApiUtil::classify);
+    }
+  }
+
+  private static class CallKind {
+    static final CallKind NONE = new CallKind(false, false, false, "");
+
+    final boolean isProducer;
+    final boolean isIntermediate;
+    final boolean isTermination;
+    @NotNull final String packageName;
+
+    CallKind(boolean isProducer, boolean isIntermediate, boolean isTermination, @NotNull String packageName) {
+      this.isProducer = isProducer;
+      this.isIntermediate = isIntermediate;
+      this.isTermination = isTermination;
+      this.packageName = packageName;
+    }
+
+    boolean isStreamCall() {
+      return isProducer || isIntermediate || isTermination;
+    }
+  }
 }
@@ -20,21 +20,22 @@ import com.intellij.debugger.streams.psi.PsiUtil;
 import com.intellij.debugger.streams.psi.StreamApiUtil;
 import com.intellij.debugger.streams.wrapper.StreamChain;
 import com.intellij.debugger.streams.wrapper.StreamChainBuilder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.*;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * @author Vitaliy.Bibaev
  */
 public class JavaStreamChainBuilder implements StreamChainBuilder {
-  private final MyStreamChainExistenceChecker myExistenceChecker = new MyStreamChainExistenceChecker();
-
   private final ChainTransformer.Java myChainTransformer;
   @NotNull private final String mySupportedPackage;
 
@@ -45,14 +46,11 @@ public class JavaStreamChainBuilder implements StreamChainBuilder {
 
   @Override
   public boolean isChainExists(@NotNull PsiElement startElement) {
-    PsiElement current = getLatestElementInCurrentScope(PsiUtil.ignoreWhiteSpaces(startElement));
-    while (current != null) {
-      myExistenceChecker.reset();
-      current.accept(myExistenceChecker);
-      if (myExistenceChecker.found()) {
+    final MySearchResult result = search(startElement);
+    for (final PsiMethodCallExpression terminationCall : result.visitor.getTerminationCalls()) {
+      if (isPackageSupported(result.classifier.getPackageName(terminationCall))) {
         return true;
       }
-      current = toUpperLevel(current);
     }
 
     return false;
@@ -61,16 +59,38 @@ public class JavaStreamChainBuilder implements StreamChainBuilder {
   @NotNull
   @Override
   public List<StreamChain> build(@NotNull PsiElement startElement) {
-    final MyChainCollectorVisitor visitor = new MyChainCollectorVisitor();
+    final List<List<PsiMethodCallExpression>> chains = search(startElement).visitor.getPsiChains();
+    return buildChains(chains, startElement);
+  }
 
-    PsiElement current = getLatestElementInCurrentScope(PsiUtil.ignoreWhiteSpaces(startElement));
-    while (current != null) {
-      current.accept(visitor);
-      current = toUpperLevel(current);
+  /**
+   * The scopes around the element are visited once for all the builders: the standard library and other libraries
+   * differ only by packages of the calls, so the visited calls are shared until PSI is modified
+   */
+  @NotNull
+  static MySearchResult search(@NotNull PsiElement startElement) {
+    final MySearchCache cache = getSearchCache(startElement);
+    return cache.results.computeIfAbsent(startElement, element -> {
+      final MyChainCollectorVisitor visitor = new MyChainCollectorVisitor(cache.classifier);
+      PsiElement current = getLatestElementInCurrentScope(PsiUtil.ignoreWhiteSpaces(element));
+      while (current != null) {
+        current.accept(visitor);
+        current = toUpperLevel(current);
+      }
+
+      return new MySearchResult(cache.classifier, visitor);
+    });
+  }
+
+  @NotNull
+  private static MySearchCache getSearchCache(@NotNull PsiElement element) {
+    final PsiFile file = element.getContainingFile();
+    if (file == null) {
+      return new MySearchCache();
     }
 
-    final List<List<PsiMethodCallExpression>> chains = visitor.getPsiChains();
-    return buildChains(chains, startElement);
+    return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(new MySearchCache(),
+                                                                                             PsiModificationTracker.MODIFICATION_COUNT));
   }
 
   @Nullable
@@ -109,67 +129,57 @@ public class JavaStreamChainBuilder implements StreamChainBuilder {
     return packageName.startsWith(mySupportedPackage);
   }
 
-  private class MyStreamChainExistenceChecker extends MyVisitorBase {
-    private boolean myFound = false;
-
-    @Override
-    public void visitMethodCallExpression(PsiMethodCallExpression expression) {
-      if (myFound) return;
-      super.visitMethodCallExpression(expression);
-      if (!myFound && StreamApiUtil.isTerminationStreamCall(expression) && isPackageSupported(getPackageName(expression))) {
-        myFound = true;
-      }
-    }
-
-    void reset() {
-      myFound = false;
-    }
-
-    boolean found() {
-      return myFound;
-    }
+  private static class MySearchCache {
+    final StreamApiUtil.CallsClassifier classifier = new StreamApiUtil.CallsClassifier();
+    final Map<PsiElement, MySearchResult> results = new ConcurrentHashMap<>();
   }
 
-  @NotNull
-  private static String getPackageName(@NotNull PsiMethodCallExpression expression) {
-    final PsiMethod psiMethod = expression.resolveMethod();
-    if (psiMethod != null) {
-      final PsiClass psiClass = (PsiClass)psiMethod.getParent();
-      final String className = psiClass.getQualifiedName();
-      if (className != null) {
-        return StringUtil.getPackageName(className);
-      }
+  static class MySearchResult {
+    final StreamApiUtil.CallsClassifier classifier;
+    final MyChainCollectorVisitor visitor;
+
+    MySearchResult(@NotNull StreamApiUtil.CallsClassifier classifier, @NotNull MyChainCollectorVisitor visitor) {
+      this.classifier = classifier;
+      this.visitor = visitor;
     }
-    return "";
   }
 
   private static class MyChainCollectorVisitor extends MyVisitorBase {
     private final Set<PsiMethodCallExpression> myTerminationCalls = new HashSet<>();
     private final Map<PsiMethodCallExpression, PsiMethodCallExpression> myPreviousCalls = new HashMap<>();
 
+    MyChainCollectorVisitor(@NotNull StreamApiUtil.CallsClassifier classifier) {
+      super(classifier);
+    }
+
     @Override
     public void visitMethodCallExpression(PsiMethodCallExpression expression) {
       super.visitMethodCallExpression(expression);
-      if (!myPreviousCalls.containsKey(expression) && StreamApiUtil.isStreamCall(expression)) {
+      if (!myPreviousCalls.containsKey(expression) && myClassifier.isStreamCall(expression)) {
         updateCallTree(expression);
       }
     }
 
     private void updateCallTree(@NotNull PsiMethodCallExpression expression) {
-      if (StreamApiUtil.isTerminationStreamCall(expression)) {
+      if (myClassifier.isTerminationStreamCall(expression)) {
         myTerminationCalls.add(expression);
       }
 
       final PsiElement parent = expression.getParent();
       if (parent == null || !(parent instanceof PsiReferenceExpression)) return;
       final PsiElement parentCall = parent.getParent();
-      if (parentCall instanceof PsiMethodCallExpression && StreamApiUtil.isStreamCall((PsiMethodCallExpression)parentCall)) {
+      if (parentCall instanceof PsiMethodCallExpression && myClassifier.isStreamCall((PsiMethodCallExpression)parentCall)) {
         final PsiMethodCallExpression parentCallExpression = (PsiMethodCallExpression)parentCall;
         myPreviousCalls.put(parentCallExpression, expression);
         updateCallTree(parentCallExpression);
       }
     }
 
+    @NotNull
+    Set<PsiMethodCallExpression> getTerminationCalls() {
+      return myTerminationCalls;
+    }
+
     @NotNull
     List<List<PsiMethodCallExpression>> getPsiChains() {
       final List<List<PsiMethodCallExpression>> chains = new ArrayList<>();
@@ -177,7 +187,7 @@ public class JavaStreamChainBuilder implements StreamChainBuilder {
         final List<PsiMethodCallExpression> chain = new ArrayList<>();
         PsiMethodCallExpression current = terminationCall;
         while (current != null) {
-          if (StreamApiUtil.isProducerStreamCall(current)) {
+          if (myClassifier.isProducerStreamCall(current)) {
             break;
           }
           chain.add(current);
@@ -193,6 +203,12 @@ public class JavaStreamChainBuilder implements StreamChainBuilder {
   }
 
   private static class MyVisitorBase extends JavaRecursiveElementVisitor {
+    final StreamApiUtil.CallsClassifier myClassifier;
+
+    MyVisitorBase(@NotNull StreamApiUtil.CallsClassifier classifier) {
+      myClassifier = classifier;
+    }
+
     @Override
     public void visitCodeBlock(PsiCodeBlock block) {
     }
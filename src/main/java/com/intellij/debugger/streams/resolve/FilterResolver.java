@@ -31,7 +31,6 @@ public class FilterResolver implements ValuesOrderResolver {
   public Result resolve(@NotNull TraceInfo info) {
     final Map<Integer, TraceElement> before = info.getValuesOrderBefore();
     final Map<Integer, TraceElement> after = info.getValuesOrderAfter();
-    assert before.size() >= after.size();
     final Map<TraceElement, List<TraceElement>> forward = new LinkedHashMap<>();
     final Map<TraceElement, List<TraceElement>> backward = new LinkedHashMap<>();
 
@@ -42,7 +41,8 @@ public class FilterResolver implements ValuesOrderResolver {
     for (final int afterTime : afterTimes) {
       final TraceElement afterElement = after.get(afterTime);
       final Value afterValue = afterElement.getValue();
-      while (beforeIndex < beforeTimes.length) {
+      // an element passes the filter after it comes to it, the element of a truncated trace may have no recorded partner
+      while (beforeIndex < beforeTimes.length && beforeTimes[beforeIndex] < afterTime) {
         final TraceElement beforeElement = before.get(beforeTimes[beforeIndex]);
         if (Objects.equals(beforeElement.getValue(), afterValue)) {
           forward.put(beforeElement, Collections.singletonList(afterElement));
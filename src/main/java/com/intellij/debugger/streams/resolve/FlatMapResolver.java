@@ -41,6 +41,11 @@ public class FlatMapResolver implements ValuesOrderResolver {
       final TraceElement afterElement = before.get(beforeTimes[i]);
       final List<TraceElement> afterElements = new ArrayList<>();
       final int nextBeforeTime = i + 1 < beforeTimes.length ? beforeTimes[i + 1] : Integer.MAX_VALUE;
+      // elements produced from a not recorded element of a truncated trace have no partner
+      while (beforeIndex < afterTimes.length && afterTimes[beforeIndex] < beforeTimes[i]) {
+        beforeIndex++;
+      }
+
       while (beforeIndex < afterTimes.length && afterTimes[beforeIndex] < nextBeforeTime) {
         final TraceElement beforeElement = after.get(afterTimes[beforeIndex]);
 
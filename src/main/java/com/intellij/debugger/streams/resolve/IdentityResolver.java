@@ -52,12 +52,13 @@ public class IdentityResolver implements ValuesOrderResolver {
       final Object key = extractKey(element);
 
       final List<TraceElement> elements = grouped.get(key);
-      if (elements == null || elements.isEmpty()) {
+      final int nextIndex = key2Index.getOrDefault(key, -1) + 1;
+      // the partner of a truncated trace may be not recorded
+      if (elements == null || nextIndex >= elements.size()) {
         direct.put(element, Collections.emptyList());
         continue;
       }
 
-      final int nextIndex = key2Index.getOrDefault(key, -1) + 1;
       key2Index.put(key, nextIndex);
       final TraceElement afterItem = elements.get(nextIndex);
 
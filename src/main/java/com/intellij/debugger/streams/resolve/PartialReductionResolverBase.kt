@@ -39,7 +39,8 @@ abstract class PartialReductionResolverBase : ValuesOrderResolver {
       reverseMapping[valueAfter] = reverseList
     }
 
-    if (valuesAfter.isNotEmpty() && valuesBefore.isNotEmpty()) {
+    // the last value after of a truncated trace may be produced before the last recorded value
+    if (valuesAfter.isNotEmpty() && valuesBefore.isNotEmpty() && valuesBefore.last().time < valuesAfter.last().time) {
       reverseMapping[valuesAfter.last()]!! += valuesBefore.last()
     }
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.settings;
+
+import com.intellij.openapi.options.Configurable;
+import com.intellij.ui.components.JBCheckBox;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class StreamDebuggerConfigurable implements Configurable {
+  private static final int MAX_ELEMENTS_LIMIT = 100_000_000;
+  private static final int MAX_TIME_BUDGET_SECONDS = 24 * 60 * 60;
+
+  private JBCheckBox myLimitEnabledCheckBox;
+  private JSpinner myLimitSpinner;
+  private JBCheckBox myBudgetEnabledCheckBox;
+  private JSpinner myTimeBudgetSpinner;
+  private JSpinner myRecordedElementsBudgetSpinner;
+  private JBCheckBox myParallelTracingCheckBox;
+
+  @Nls
+  @Override
+  public String getDisplayName() {
+    return "Java Stream Debugger";
+  }
+
+  @Nullable
+  @Override
+  public JComponent createComponent() {
+    myLimitEnabledCheckBox = new JBCheckBox("Record only the first");
+    myLimitSpinner = new JSpinner(new SpinnerNumberModel(StreamDebuggerSettings.DEFAULT_ELEMENTS_LIMIT, 1, MAX_ELEMENTS_LIMIT, 1000));
+    myLimitEnabledCheckBox.addActionListener(e -> myLimitSpinner.setEnabled(myLimitEnabledCheckBox.isSelected()));
+
+    final JPanel limitPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    limitPanel.add(myLimitEnabledCheckBox);
+    limitPanel.add(myLimitSpinner);
+    limitPanel.add(new JLabel(" elements of the source and of every sorting call, with all elements they turn into"));
+
+    myBudgetEnabledCheckBox = new JBCheckBox("Abort tracing after");
+    myTimeBudgetSpinner =
+      new JSpinner(new SpinnerNumberModel(StreamDebuggerSettings.DEFAULT_TIME_BUDGET_SECONDS, 1, MAX_TIME_BUDGET_SECONDS, 10));
+    myRecordedElementsBudgetSpinner =
+      new JSpinner(new SpinnerNumberModel(StreamDebuggerSettings.DEFAULT_RECORDED_ELEMENTS_BUDGET, 1, MAX_ELEMENTS_LIMIT, 100_000));
+    myBudgetEnabledCheckBox.addActionListener(e -> updateBudgetSpinners());
+
+    final JPanel budgetPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    budgetPanel.add(myBudgetEnabledCheckBox);
+    budgetPanel.add(myTimeBudgetSpinner);
+    budgetPanel.add(new JLabel(" seconds or "));
+    budgetPanel.add(myRecordedElementsBudgetSpinner);
+    budgetPanel.add(new JLabel(" recorded elements"));
+
+    myParallelTracingCheckBox = new JBCheckBox("Trace parallel streams in parallel and show the worker thread of every element");
+
+    final JPanel rows = new JPanel(new GridLayout(3, 1));
+    rows.add(limitPanel);
+    rows.add(budgetPanel);
+    rows.add(myParallelTracingCheckBox);
+
+    final JPanel panel = new JPanel(new BorderLayout());
+    panel.add(rows, BorderLayout.NORTH);
+    return panel;
+  }
+
+  @Override
+  public boolean isModified() {
+    return myLimitEnabledCheckBox.isSelected() != StreamDebuggerSettings.isElementsLimitEnabled() ||
+           getSpinnerValue(myLimitSpinner) != StreamDebuggerSettings.getElementsLimit() ||
+           myBudgetEnabledCheckBox.isSelected() != StreamDebuggerSettings.isBudgetEnabled() ||
+           getSpinnerValue(myTimeBudgetSpinner) != StreamDebuggerSettings.getTimeBudgetSeconds() ||
+           getSpinnerValue(myRecordedElementsBudgetSpinner) != StreamDebuggerSettings.getRecordedElementsBudget() ||
+           myParallelTracingCheckBox.isSelected() != StreamDebuggerSettings.isParallelTracingEnabled();
+  }
+
+  @Override
+  public void apply() {
+    StreamDebuggerSettings.setElementsLimitEnabled(myLimitEnabledCheckBox.isSelected());
+    StreamDebuggerSettings.setElementsLimit(getSpinnerValue(myLimitSpinner));
+    StreamDebuggerSettings.setBudgetEnabled(myBudgetEnabledCheckBox.isSelected());
+    StreamDebuggerSettings.setTimeBudgetSeconds(getSpinnerValue(myTimeBudgetSpinner));
+    StreamDebuggerSettings.setRecordedElementsBudget(getSpinnerValue(myRecordedElementsBudgetSpinner));
+    StreamDebuggerSettings.setParallelTracingEnabled(myParallelTracingCheckBox.isSelected());
+  }
+
+  @Override
+  public void reset() {
+    final boolean isLimitEnabled = StreamDebuggerSettings.isElementsLimitEnabled();
+    myLimitEnabledCheckBox.setSelected(isLimitEnabled);
+    myLimitSpinner.setValue(StreamDebuggerSettings.getElementsLimit());
+    myLimitSpinner.setEnabled(isLimitEnabled);
+
+    myBudgetEnabledCheckBox.setSelected(StreamDebuggerSettings.isBudgetEnabled());
+    myTimeBudgetSpinner.setValue(StreamDebuggerSettings.getTimeBudgetSeconds());
+    myRecordedElementsBudgetSpinner.setValue(StreamDebuggerSettings.getRecordedElementsBudget());
+    updateBudgetSpinners();
+
+    myParallelTracingCheckBox.setSelected(StreamDebuggerSettings.isParallelTracingEnabled());
+  }
+
+  @Override
+  public void disposeUIResources() {
+    myLimitEnabledCheckBox = null;
+    myLimitSpinner = null;
+    myBudgetEnabledCheckBox = null;
+    myTimeBudgetSpinner = null;
+    myRecordedElementsBudgetSpinner = null;
+    myParallelTracingCheckBox = null;
+  }
+
+  private void updateBudgetSpinners() {
+    final boolean isBudgetEnabled = myBudgetEnabledCheckBox.isSelected();
+    myTimeBudgetSpinner.setEnabled(isBudgetEnabled);
+    myRecordedElementsBudgetSpinner.setEnabled(isBudgetEnabled);
+  }
+
+  private static int getSpinnerValue(@NotNull JSpinner spinner) {
+    return ((Number)spinner.getValue()).intValue();
+  }
+}
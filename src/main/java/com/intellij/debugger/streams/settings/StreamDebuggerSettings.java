@@ -0,0 +1,111 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.settings;
+
+import com.intellij.ide.util.PropertiesComponent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class StreamDebuggerSettings {
+  private static final String IS_ELEMENTS_LIMIT_ENABLED_PROPERTY = "org.jetbrains.debugger.streams:isTraceElementsLimitEnabled";
+  private static final String ELEMENTS_LIMIT_PROPERTY = "org.jetbrains.debugger.streams:traceElementsLimit";
+  private static final String IS_BUDGET_ENABLED_PROPERTY = "org.jetbrains.debugger.streams:isTraceBudgetEnabled";
+  private static final String TIME_BUDGET_PROPERTY = "org.jetbrains.debugger.streams:traceTimeBudgetSeconds";
+  private static final String RECORDED_ELEMENTS_BUDGET_PROPERTY = "org.jetbrains.debugger.streams:traceRecordedElementsBudget";
+  private static final String IS_PARALLEL_TRACING_ENABLED_PROPERTY = "org.jetbrains.debugger.streams:isParallelTracingEnabled";
+
+  public static final int DEFAULT_ELEMENTS_LIMIT = 10000;
+  public static final int DEFAULT_TIME_BUDGET_SECONDS = 30;
+  public static final int DEFAULT_RECORDED_ELEMENTS_BUDGET = 1_000_000;
+
+  private StreamDebuggerSettings() {}
+
+  public static boolean isElementsLimitEnabled() {
+    return PropertiesComponent.getInstance().getBoolean(IS_ELEMENTS_LIMIT_ENABLED_PROPERTY, false);
+  }
+
+  public static void setElementsLimitEnabled(boolean enabled) {
+    PropertiesComponent.getInstance().setValue(IS_ELEMENTS_LIMIT_ENABLED_PROPERTY, enabled, false);
+  }
+
+  public static int getElementsLimit() {
+    return PropertiesComponent.getInstance().getInt(ELEMENTS_LIMIT_PROPERTY, DEFAULT_ELEMENTS_LIMIT);
+  }
+
+  public static void setElementsLimit(int limit) {
+    PropertiesComponent.getInstance().setValue(ELEMENTS_LIMIT_PROPERTY, limit, DEFAULT_ELEMENTS_LIMIT);
+  }
+
+  /**
+   * Returns the number of the first elements taken from the source or from a buffering call (like sorted) which are recorded,
+   * together with all the elements they turn into further down the chain
+   */
+  public static int getEffectiveElementsLimit() {
+    return isElementsLimitEnabled() ? getElementsLimit() : Integer.MAX_VALUE;
+  }
+
+  public static boolean isBudgetEnabled() {
+    return PropertiesComponent.getInstance().getBoolean(IS_BUDGET_ENABLED_PROPERTY, false);
+  }
+
+  public static void setBudgetEnabled(boolean enabled) {
+    PropertiesComponent.getInstance().setValue(IS_BUDGET_ENABLED_PROPERTY, enabled, false);
+  }
+
+  public static int getTimeBudgetSeconds() {
+    return PropertiesComponent.getInstance().getInt(TIME_BUDGET_PROPERTY, DEFAULT_TIME_BUDGET_SECONDS);
+  }
+
+  public static void setTimeBudgetSeconds(int seconds) {
+    PropertiesComponent.getInstance().setValue(TIME_BUDGET_PROPERTY, seconds, DEFAULT_TIME_BUDGET_SECONDS);
+  }
+
+  public static int getRecordedElementsBudget() {
+    return PropertiesComponent.getInstance().getInt(RECORDED_ELEMENTS_BUDGET_PROPERTY, DEFAULT_RECORDED_ELEMENTS_BUDGET);
+  }
+
+  public static void setRecordedElementsBudget(int budget) {
+    PropertiesComponent.getInstance().setValue(RECORDED_ELEMENTS_BUDGET_PROPERTY, budget, DEFAULT_RECORDED_ELEMENTS_BUDGET);
+  }
+
+  /**
+   * Returns true if parallel chains should be traced without making them sequential
+   */
+  public static boolean isParallelTracingEnabled() {
+    return PropertiesComponent.getInstance().getBoolean(IS_PARALLEL_TRACING_ENABLED_PROPERTY, false);
+  }
+
+  public static void setParallelTracingEnabled(boolean enabled) {
+    PropertiesComponent.getInstance().setValue(IS_PARALLEL_TRACING_ENABLED_PROPERTY, enabled, false);
+  }
+
+  /**
+   * Returns the time after which the debuggee aborts evaluation of a traced chain, or {@link Long#MAX_VALUE} if there is no budget
+   */
+  public static long getEffectiveTimeBudgetNanos() {
+    return isBudgetEnabled() ? TimeUnit.SECONDS.toNanos(getTimeBudgetSeconds()) : Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the number of elements recorded over all calls of a traced chain, after which the debuggee aborts the evaluation
+   */
+  public static int getEffectiveRecordedElementsBudget() {
+    return isBudgetEnabled() ? getRecordedElementsBudget() : Integer.MAX_VALUE;
+  }
+}
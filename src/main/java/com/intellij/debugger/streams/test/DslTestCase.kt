@@ -230,6 +230,31 @@ abstract class DslTestCase(private val dsl: Dsl) : LightCodeInsightFixtureTestCa
     }
   }
 
+  fun testLambdaWithIf() {
+    doTest {
+      +lambda("x") {
+        ifBranch(lambdaArg lessThan traceLimit()) {
+          statement { lambdaArg.call("method") }
+        }
+      }
+    }
+  }
+
+  fun testLambdaVariableDeclaration() {
+    doTest {
+      declare(variable(types.INT_CONSUMER, "consumer"), lambda("x") {
+        statement { lambdaArg.call("method") }
+      }, false)
+    }
+  }
+
+  fun testThreadLocalDeclaration() {
+    doTest {
+      val type = types.threadLocal(types.array(types.LONG))
+      declare(variable(type, "states"), type.defaultValue.expr, false)
+    }
+  }
+
   fun testAssignment() {
     doTest {
       val a = declare(variable(types.INT, "a"), true)
@@ -307,6 +332,12 @@ abstract class DslTestCase(private val dsl: Dsl) : LightCodeInsightFixtureTestCa
     }
   }
 
+  fun testIdentityMapInitialization() {
+    doTest {
+      declare(identityMap(types.ANY, types.INT, "map").defaultDeclaration(false))
+    }
+  }
+
   fun testMapComputeIfAbsent() {
     doTest {
       val map = map(types.INT, types.ANY, "map")
@@ -333,6 +364,21 @@ abstract class DslTestCase(private val dsl: Dsl) : LightCodeInsightFixtureTestCa
     }
   }
 
+  fun testArrayBuilderOperations() {
+    doTest {
+      val builder = arrayBuilder(types.INT, "builder")
+      declare(builder.defaultDeclaration())
+      statement { builder.add("100".expr) }
+      declare(array(types.INT, "array"), builder.toArray(), false)
+    }
+  }
+
+  fun testObjectArrayBuilderDeclaration() {
+    doTest {
+      declare(arrayBuilder(types.ANY, "builder").defaultDeclaration())
+    }
+  }
+
   fun testNewList() {
     doTest {
       val variable = list(types.INT, "lst")
@@ -423,6 +469,28 @@ abstract class DslTestCase(private val dsl: Dsl) : LightCodeInsightFixtureTestCa
     }
   }
 
+  fun testTimeUpdate() {
+    doTest {
+      statement { updateTime() }
+      declare(variable(types.INT, "now"), currentTime(), false)
+    }
+  }
+
+  fun testTraceLimitDeclaration() {
+    doTest {
+      declare(traceLimitDeclaration(100))
+    }
+  }
+
+  fun testRecordingDeclaration() {
+    doTest {
+      declare(recordingDeclaration())
+      ifBranch(isRecording()) {
+        statement { updateTime() }
+      }
+    }
+  }
+
   fun testSizedArrayCreation() {
     doTest {
       +newSizedArray(types.STRING, 100)
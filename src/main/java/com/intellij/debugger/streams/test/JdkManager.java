@@ -24,7 +24,7 @@ import java.io.File;
 /**
  * @author Vitaliy.Bibaev
  */
-class JdkManager {
+public class JdkManager {
   static final String JDK18_PATH;
 
   private static final String MOCK_JDK_DIR_NAME_PREFIX = "mockJDK-";
@@ -37,7 +37,7 @@ class JdkManager {
     JDK18_PATH = new File("java/" + MOCK_JDK_DIR_NAME_PREFIX + "1.8").getAbsolutePath();
   }
 
-  static Sdk getMockJdk18() {
+  public static Sdk getMockJdk18() {
     return Holder.JDK18;
   }
 }
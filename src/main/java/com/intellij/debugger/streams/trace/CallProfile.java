@@ -0,0 +1,58 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace;
+
+import com.intellij.debugger.streams.wrapper.StreamCall;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Time spent by a call of the traced chain and the numbers of elements passed through it, including ones beyond the trace limit
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class CallProfile {
+  private final StreamCall myCall;
+  private final long myTimeNanos;
+  private final int myElementsBefore;
+  private final int myElementsAfter;
+
+  public CallProfile(@NotNull StreamCall call, long timeNanos, int elementsBefore, int elementsAfter) {
+    myCall = call;
+    myTimeNanos = timeNanos;
+    myElementsBefore = elementsBefore;
+    myElementsAfter = elementsAfter;
+  }
+
+  @NotNull
+  public StreamCall getCall() {
+    return myCall;
+  }
+
+  public long getTimeNanos() {
+    return myTimeNanos;
+  }
+
+  public int getElementsBefore() {
+    return myElementsBefore;
+  }
+
+  /**
+   * Returns the number of elements produced by an intermediate call, and 0 for the termination call
+   */
+  public int getElementsAfter() {
+    return myElementsAfter;
+  }
+}
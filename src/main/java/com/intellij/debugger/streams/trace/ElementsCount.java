@@ -0,0 +1,43 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace;
+
+/**
+ * Numbers of elements passed through a position of the traced chain and recorded there, they differ if the trace is truncated
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class ElementsCount {
+  private final int myPassed;
+  private final int myRecorded;
+
+  public ElementsCount(int passed, int recorded) {
+    myPassed = passed;
+    myRecorded = recorded;
+  }
+
+  public int getPassed() {
+    return myPassed;
+  }
+
+  public int getRecorded() {
+    return myRecorded;
+  }
+
+  public boolean isTruncated() {
+    return myRecorded < myPassed;
+  }
+}
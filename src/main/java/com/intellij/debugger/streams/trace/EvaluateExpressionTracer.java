@@ -15,9 +15,15 @@
  */
 package com.intellij.debugger.streams.trace;
 
+import com.intellij.debugger.engine.DebugProcessImpl;
+import com.intellij.debugger.engine.JavaDebugProcess;
 import com.intellij.debugger.engine.JavaValue;
 import com.intellij.debugger.engine.evaluation.EvaluationContextImpl;
+import com.intellij.debugger.engine.events.DebuggerCommandImpl;
+import com.intellij.debugger.jdi.ThreadReferenceProxyImpl;
 import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.intellij.debugger.streams.wrapper.TraceUtil;
+import com.intellij.xdebugger.XDebugProcess;
 import com.intellij.xdebugger.XDebugSession;
 import com.intellij.xdebugger.evaluation.EvaluationMode;
 import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
@@ -36,6 +42,7 @@ public class EvaluateExpressionTracer implements StreamTracer {
   private final XDebugSession mySession;
   private final TraceExpressionBuilder myExpressionBuilder;
   private final TraceResultInterpreter myResultInterpreter;
+  private volatile ThreadReferenceProxyImpl myEvaluatingThread;
 
   public EvaluateExpressionTracer(@NotNull XDebugSession session,
                                   @NotNull TraceExpressionBuilder expressionBuilder,
@@ -52,21 +59,25 @@ public class EvaluateExpressionTracer implements StreamTracer {
     final XStackFrame stackFrame = mySession.getCurrentStackFrame();
     final XDebuggerEvaluator evaluator = mySession.getDebugProcess().getEvaluator();
     if (stackFrame != null && evaluator != null) {
+      final DebugProcessImpl debugProcess = getJavaDebugProcess();
+      myEvaluatingThread = debugProcess == null ? null : debugProcess.getDebuggerContext().getThreadProxy();
       evaluator.evaluate(XExpressionImpl.fromText(streamTraceExpression, EvaluationMode.CODE_FRAGMENT), new XEvaluationCallbackBase() {
         @Override
         public void evaluated(@NotNull XValue result) {
+          myEvaluatingThread = null;
           if (result instanceof JavaValue) {
             final Value reference = ((JavaValue)result).getDescriptor().getValue();
             if (reference instanceof ArrayReference) {
+              final EvaluationContextImpl context = ((JavaValue)result).getEvaluationContext();
               final TracingResult interpretedResult;
               try {
-                interpretedResult = myResultInterpreter.interpret(chain, (ArrayReference)reference);
+                interpretedResult = myResultInterpreter.interpret(chain, (ArrayReference)reference,
+                                                                  trace -> callback.callInterpreted(trace, context));
               }
               catch (Throwable t) {
                 callback.evaluationFailed(streamTraceExpression, "Cannot interpret trace result. " + t.getMessage());
                 throw t;
               }
-              final EvaluationContextImpl context = ((JavaValue)result).getEvaluationContext();
               callback.evaluated(interpretedResult, context);
               return;
             }
@@ -80,7 +91,7 @@ public class EvaluateExpressionTracer implements StreamTracer {
                 }
 
                 if (classType != null) {
-                  final String exceptionMessage = tryExtractExceptionMessage((ObjectReference)reference);
+                  final String exceptionMessage = TraceUtil.tryExtractExceptionMessage((ObjectReference)reference);
                   final String description = "Evaluation failed: " + type.name() + " exception thrown";
                   final String descriptionWithReason = exceptionMessage == null ? description : description + ": " + exceptionMessage;
                   callback.evaluationFailed(streamTraceExpression, descriptionWithReason);
@@ -95,22 +106,34 @@ public class EvaluateExpressionTracer implements StreamTracer {
 
         @Override
         public void errorOccurred(@NotNull String errorMessage) {
+          myEvaluatingThread = null;
           callback.compilationFailed(streamTraceExpression, errorMessage);
         }
       }, stackFrame.getSourcePosition());
     }
   }
 
-  @Nullable
-  private static String tryExtractExceptionMessage(@NotNull ObjectReference exception) {
-    final ReferenceType type = exception.referenceType();
-    final Field messageField = type.fieldByName("detailMessage");
-    if (messageField == null) return null;
-    final Value message = exception.getValue(messageField);
-    if (message instanceof StringReference) {
-      return ((StringReference)message).value();
+  @Override
+  public void cancel() {
+    final ThreadReferenceProxyImpl thread = myEvaluatingThread;
+    final DebugProcessImpl debugProcess = getJavaDebugProcess();
+    if (thread != null && debugProcess != null) {
+      // method invocation forks the debugger manager thread, so the command is executed while the debuggee evaluates the trace
+      debugProcess.getManagerThread().schedule(new DebuggerCommandImpl() {
+        @Override
+        protected void action() throws Exception {
+          // the trace expression aborts with the trace collected so far when the flag is set during the tracing, and clears it
+          if (myEvaluatingThread == thread) {
+            thread.getThreadReference().interrupt();
+          }
+        }
+      });
     }
+  }
 
-    return null;
+  @Nullable
+  private DebugProcessImpl getJavaDebugProcess() {
+    final XDebugProcess process = mySession.getDebugProcess();
+    return process instanceof JavaDebugProcess ? ((JavaDebugProcess)process).getDebuggerSession().getProcess() : null;
   }
 }
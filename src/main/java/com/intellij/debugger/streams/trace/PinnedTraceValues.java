@@ -0,0 +1,87 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace;
+
+import com.intellij.debugger.engine.DebugProcessImpl;
+import com.intellij.debugger.engine.events.DebuggerCommandImpl;
+import com.intellij.openapi.diagnostic.Logger;
+import com.sun.jdi.ObjectCollectedException;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.VMDisconnectedException;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Debuggee objects of a trace whose garbage collection is disabled, so the traced values stay available
+ * after the debuggee is resumed. The collection is enabled again when the trace is not shown anymore
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class PinnedTraceValues {
+  private static final Logger LOG = Logger.getInstance(PinnedTraceValues.class);
+
+  private final List<ObjectReference> myValues = new ArrayList<>();
+  private boolean myIsReleased;
+
+  /**
+   * Disables garbage collection of the value until the values are released. Should be called in the debugger manager thread
+   */
+  public synchronized void pin(@NotNull ObjectReference value) {
+    if (myIsReleased) {
+      return;
+    }
+
+    try {
+      value.disableCollection();
+      myValues.add(value);
+    }
+    catch (ObjectCollectedException | UnsupportedOperationException e) {
+      LOG.info("cannot disable collection of a traced value", e);
+    }
+  }
+
+  @NotNull
+  public synchronized List<ObjectReference> getValues() {
+    return new ArrayList<>(myValues);
+  }
+
+  /**
+   * Enables garbage collection of all the pinned values. Should be called in the debugger manager thread
+   */
+  public synchronized void release() {
+    myIsReleased = true;
+    for (final ObjectReference value : myValues) {
+      try {
+        value.enableCollection();
+      }
+      catch (ObjectCollectedException | VMDisconnectedException ignored) {
+      }
+    }
+
+    myValues.clear();
+  }
+
+  public void releaseLater(@NotNull DebugProcessImpl process) {
+    process.getManagerThread().schedule(new DebuggerCommandImpl() {
+      @Override
+      protected void action() throws Exception {
+        release();
+      }
+    });
+  }
+}
@@ -18,6 +18,9 @@ package com.intellij.debugger.streams.trace;
 import com.intellij.debugger.streams.resolve.ResolvedStreamChain;
 import com.intellij.debugger.streams.wrapper.StreamChain;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
 
 /**
  * @author Vitaliy.Bibaev
@@ -31,6 +34,36 @@ public interface ResolvedTracingResult {
 
   boolean exceptionThrown();
 
+  /**
+   * Returns true if some elements of the chain were not recorded because of the trace limit
+   */
+  boolean isTruncated();
+
+  /**
+   * Returns numbers of passed and recorded elements after the source and after every intermediate call of the chain,
+   * or an empty list if they were not counted
+   */
+  @NotNull
+  List<ElementsCount> getElementsCount();
+
+  /**
+   * Returns the reason if evaluation of the chain was aborted by the budget or cancelled, so only the elements recorded before are traced
+   */
+  @Nullable
+  String getAbortReason();
+
+  /**
+   * Returns time and numbers of elements for every call of the chain, or an empty list if they were not measured
+   */
+  @NotNull
+  List<CallProfile> getProfile();
+
+  /**
+   * Returns numbers of elements passed by every worker thread, or an empty list if the chain was traced sequentially
+   */
+  @NotNull
+  List<WorkerThreadProfile> getWorkerThreads();
+
   @NotNull
   TraceElement getResult();
 }
@@ -23,4 +23,9 @@ import org.jetbrains.annotations.NotNull;
  */
 public interface StreamTracer {
   void trace(@NotNull StreamChain chain, @NotNull TracingCallback callback);
+
+  /**
+   * Asks the debuggee to stop evaluation of the trace. The elements recorded so far are passed to the callback as a partial trace
+   */
+  void cancel();
 }
@@ -26,4 +26,10 @@ public interface TraceElement {
 
   @Nullable
   Value getValue();
+
+  /**
+   * Returns the name of the worker thread which passed the element if the chain was traced in parallel
+   */
+  @Nullable
+  String getThreadName();
 }
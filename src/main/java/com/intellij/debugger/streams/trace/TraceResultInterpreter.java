@@ -19,10 +19,23 @@ import com.intellij.debugger.streams.wrapper.StreamChain;
 import com.sun.jdi.ArrayReference;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.function.Consumer;
+
 /**
  * @author Vitaliy.Bibaev
  */
 public interface TraceResultInterpreter {
   @NotNull
-  TracingResult interpret(@NotNull StreamChain chain, @NotNull ArrayReference evaluationResult);
+  default TracingResult interpret(@NotNull StreamChain chain, @NotNull ArrayReference evaluationResult) {
+    return interpret(chain, evaluationResult, trace -> {
+    });
+  }
+
+  /**
+   * Passes a trace of every call to the given consumer as soon as the trace is interpreted, in the chain order
+   */
+  @NotNull
+  TracingResult interpret(@NotNull StreamChain chain,
+                          @NotNull ArrayReference evaluationResult,
+                          @NotNull Consumer<TraceInfo> traceConsumer);
 }
@@ -22,6 +22,12 @@ import org.jetbrains.annotations.NotNull;
  * @author Vitaliy.Bibaev
  */
 public interface TracingCallback {
+  /**
+   * Called for every call of the chain, in the chain order, before {@link #evaluated(TracingResult, EvaluationContextImpl)}
+   */
+  default void callInterpreted(@NotNull TraceInfo trace, @NotNull EvaluationContextImpl context) {
+  }
+
   void evaluated(@NotNull TracingResult result, @NotNull EvaluationContextImpl context);
 
   void evaluationFailed(@NotNull String traceExpression, @NotNull String message);
@@ -17,6 +17,7 @@ package com.intellij.debugger.streams.trace;
 
 import com.intellij.debugger.streams.lib.ResolverFactory;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
@@ -32,6 +33,43 @@ public interface TracingResult {
 
   boolean exceptionThrown();
 
+  /**
+   * Returns true if some elements of the chain were not recorded because of the trace limit
+   */
+  boolean isTruncated();
+
+  /**
+   * Returns numbers of passed and recorded elements after the source and after every intermediate call of the chain,
+   * or an empty list if they were not counted
+   */
+  @NotNull
+  List<ElementsCount> getElementsCount();
+
+  /**
+   * Returns the reason if evaluation of the chain was aborted by the budget or cancelled, so only the elements recorded before are traced
+   */
+  @Nullable
+  String getAbortReason();
+
+  /**
+   * Returns time and numbers of elements for every call of the chain, or an empty list if they were not measured
+   */
+  @NotNull
+  List<CallProfile> getProfile();
+
+  /**
+   * Returns numbers of elements passed by every worker thread, or an empty list if the chain was traced sequentially
+   */
+  @NotNull
+  List<WorkerThreadProfile> getWorkerThreads();
+
+  /**
+   * Returns objects of the debuggee which are kept from garbage collection to keep the traced values available,
+   * they should be released when the trace is not shown anymore
+   */
+  @NotNull
+  PinnedTraceValues getPinnedValues();
+
   @NotNull
   List<TraceInfo> getTrace();
 
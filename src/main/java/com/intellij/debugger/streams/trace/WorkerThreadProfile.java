@@ -0,0 +1,55 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Numbers of elements which a worker thread passed to every call of a chain traced in parallel.
+ * Only recorded elements are counted, so the numbers are bounded by the trace limit
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class WorkerThreadProfile {
+  private final String myThreadName;
+  private final int[] myElementsPerCall;
+
+  public WorkerThreadProfile(@NotNull String threadName, @NotNull int[] elementsPerCall) {
+    myThreadName = threadName;
+    myElementsPerCall = elementsPerCall;
+  }
+
+  @NotNull
+  public String getThreadName() {
+    return myThreadName;
+  }
+
+  /**
+   * Returns the number of elements passed to the call with the given index in the chain
+   */
+  public int getElements(int callIndex) {
+    return myElementsPerCall[callIndex];
+  }
+
+  public int getTotalElements() {
+    int total = 0;
+    for (final int elements : myElementsPerCall) {
+      total += elements;
+    }
+
+    return total;
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.dsl
+
+import com.intellij.debugger.streams.trace.impl.handler.type.ArrayBuilderType
+
+/**
+ * Growable append-only storage which is converted to a (primitive if possible) array at the end
+ *
+ * @author Vitaliy.Bibaev
+ */
+interface ArrayBuilderVariable : Variable {
+  override val type: ArrayBuilderType
+
+  fun add(element: Expression): Expression
+
+  fun toArray(): Expression
+
+  fun defaultDeclaration(): VariableDeclaration
+}
@@ -31,6 +31,8 @@ interface DslFactory {
 
   fun list(elementType: GenericType, name: String): ListVariable
 
+  fun arrayBuilder(elementType: GenericType, name: String): ArrayBuilderVariable
+
   fun newList(elementType: GenericType, vararg args: Expression): Expression
 
   fun newArray(elementType: GenericType, vararg args: Expression): Expression
@@ -43,6 +45,8 @@ interface DslFactory {
 
   fun linkedMap(keyType: GenericType, valueType: GenericType, name: String): MapVariable
 
+  fun identityMap(keyType: GenericType, valueType: GenericType, name: String): MapVariable
+
   fun declaration(variable: Variable, init: Expression, isMutable: Boolean): VariableDeclaration
 
   val String.expr: Expression
@@ -54,6 +58,8 @@ interface DslFactory {
 
   infix fun Expression.same(right: Expression): Expression
 
+  infix fun Expression.lessThan(right: Expression): Expression
+
   operator fun Expression.not(): Expression
 
   fun timeDeclaration(): VariableDeclaration
@@ -62,5 +68,13 @@ interface DslFactory {
 
   fun updateTime(): Expression
 
+  fun traceLimitDeclaration(limit: Int): VariableDeclaration
+
+  fun traceLimit(): Expression
+
+  fun recordingDeclaration(): VariableDeclaration
+
+  fun isRecording(): Expression
+
   fun createPeekCall(elementsType: GenericType, lambda: String): IntermediateStreamCall
 }
\ No newline at end of file
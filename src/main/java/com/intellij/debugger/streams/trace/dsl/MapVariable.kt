@@ -28,6 +28,7 @@ interface MapVariable : Variable {
   fun contains(key: Expression): Expression
   fun size(): Expression
   fun keys(): Expression
+  fun entries(): Expression
   fun computeIfAbsent(key: Expression, supplier: Lambda): Expression
 
   fun defaultDeclaration(isMutable: Boolean = true): VariableDeclaration
@@ -60,12 +60,16 @@ interface StatementFactory {
 
   fun same(left: Expression, right: Expression): Expression
 
+  fun lessThan(left: Expression, right: Expression): Expression
+
   fun createIfBranch(condition: Expression, thenBlock: CodeBlock): IfBranch
 
   fun createAssignmentStatement(variable: Variable, expression: Expression): AssignmentStatement
 
   fun createMapVariable(keyType: GenericType, valueType: GenericType, name: String, linked: Boolean): MapVariable
 
+  fun createIdentityMapVariable(keyType: GenericType, valueType: GenericType, name: String): MapVariable
+
   fun createArrayVariable(elementType: GenericType, name: String): ArrayVariable
 
   fun createScope(codeBlock: CodeBlock): Convertable
@@ -78,6 +82,14 @@ interface StatementFactory {
 
   fun updateCurrentTimeExpression(): Expression
 
+  fun createTraceLimitDeclaration(limit: Int): VariableDeclaration
+
+  fun traceLimitExpression(): Expression
+
+  fun createRecordingDeclaration(): VariableDeclaration
+
+  fun isRecordingExpression(): Expression
+
   fun createNewArrayExpression(elementType: GenericType, args: Array<out Expression>): Expression
 
   fun createNewSizedArray(elementType: GenericType, size: Expression): Expression
@@ -88,5 +100,7 @@ interface StatementFactory {
 
   fun createListVariable(elementType: GenericType, name: String): ListVariable
 
+  fun createArrayBuilderVariable(elementType: GenericType, name: String): ArrayBuilderVariable
+
   fun not(expression: Expression): Expression
 }
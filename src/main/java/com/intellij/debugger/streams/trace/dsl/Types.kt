@@ -15,6 +15,7 @@
  */
 package com.intellij.debugger.streams.trace.dsl
 
+import com.intellij.debugger.streams.trace.impl.handler.type.ArrayBuilderType
 import com.intellij.debugger.streams.trace.impl.handler.type.ArrayType
 import com.intellij.debugger.streams.trace.impl.handler.type.GenericType
 import com.intellij.debugger.streams.trace.impl.handler.type.ListType
@@ -35,10 +36,28 @@ interface Types {
 
   val TIME: GenericType
 
+  /**
+   * A functional type accepting a single int argument
+   */
+  val INT_CONSUMER: GenericType
+
+  /**
+   * A functional type without arguments and result
+   */
+  val RUNNABLE: GenericType
+
+  /**
+   * A thread of the debuggee
+   */
+  val THREAD: GenericType
+
   fun array(elementType: GenericType): ArrayType
   fun list(elementsType: GenericType): ListType
   fun map(keyType: GenericType, valueType: GenericType): MapType
   fun linkedMap(keyType: GenericType, valueType: GenericType): MapType
+  fun identityMap(keyType: GenericType, valueType: GenericType): MapType
+  fun arrayBuilder(elementType: GenericType): ArrayBuilderType
+  fun threadLocal(valueType: GenericType): GenericType
 
   fun nullable(typeSelector: Types.() -> GenericType): GenericType
 }
\ No newline at end of file
@@ -57,12 +57,18 @@ class DslImpl(private val statementFactory: StatementFactory) : Dsl {
   override fun list(elementType: GenericType, name: String): ListVariable =
     statementFactory.createListVariable(elementType, name)
 
+  override fun arrayBuilder(elementType: GenericType, name: String): ArrayBuilderVariable =
+    statementFactory.createArrayBuilderVariable(elementType, name)
+
   override fun newList(elementType: GenericType, vararg args: Expression): Expression =
     statementFactory.createNewListExpression(elementType, *args)
 
   override fun linkedMap(keyType: GenericType, valueType: GenericType, name: String): MapVariable =
     statementFactory.createMapVariable(keyType, valueType, name, true)
 
+  override fun identityMap(keyType: GenericType, valueType: GenericType, name: String): MapVariable =
+    statementFactory.createIdentityMapVariable(keyType, valueType, name)
+
   override fun lambda(argName: String, init: LambdaBody.(Expression) -> Unit): Lambda {
     val lambdaBody = statementFactory.createEmptyLambdaBody(argName)
     lambdaBody.init(argName.expr)
@@ -78,6 +84,14 @@ class DslImpl(private val statementFactory: StatementFactory) : Dsl {
 
   override fun updateTime(): Expression = statementFactory.updateCurrentTimeExpression()
 
+  override fun traceLimitDeclaration(limit: Int): VariableDeclaration = statementFactory.createTraceLimitDeclaration(limit)
+
+  override fun traceLimit(): Expression = statementFactory.traceLimitExpression()
+
+  override fun recordingDeclaration(): VariableDeclaration = statementFactory.createRecordingDeclaration()
+
+  override fun isRecording(): Expression = statementFactory.isRecordingExpression()
+
   override fun createPeekCall(elementsType: GenericType, lambda: String): IntermediateStreamCall =
     statementFactory.createPeekCall(elementsType, lambda)
 
@@ -87,6 +101,8 @@ class DslImpl(private val statementFactory: StatementFactory) : Dsl {
 
   override fun Expression.same(right: Expression): Expression = statementFactory.same(this, right)
 
+  override fun Expression.lessThan(right: Expression): Expression = statementFactory.lessThan(this, right)
+
   override fun Expression.not(): Expression = statementFactory.not(this)
 
   private inner class MyContext : CodeContext, Dsl by DslImpl@ this, CodeBlock by statementFactory.createEmptyCompositeCodeBlock()
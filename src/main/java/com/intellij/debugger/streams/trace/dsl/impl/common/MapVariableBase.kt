@@ -17,9 +17,11 @@ package com.intellij.debugger.streams.trace.dsl.impl.common
 
 import com.intellij.debugger.streams.trace.dsl.CodeBlock
 import com.intellij.debugger.streams.trace.dsl.Dsl
+import com.intellij.debugger.streams.trace.dsl.Expression
 import com.intellij.debugger.streams.trace.dsl.MapVariable
 import com.intellij.debugger.streams.trace.dsl.impl.TextExpression
 import com.intellij.debugger.streams.trace.dsl.impl.VariableImpl
+import com.intellij.debugger.streams.trace.impl.handler.type.GenericType
 import com.intellij.debugger.streams.trace.impl.handler.type.MapType
 
 /**
@@ -28,13 +30,22 @@ import com.intellij.debugger.streams.trace.impl.handler.type.MapType
 abstract class MapVariableBase(override val type: MapType, override val name: String)
   : VariableImpl(type, name), MapVariable {
 
+  /**
+   * Type of the elements of [entries]
+   */
+  protected abstract val entryType: GenericType
+
+  protected abstract fun entryKey(entry: Expression): Expression
+
+  protected abstract fun entryValue(entry: Expression): Expression
+
   override fun convertToArray(dsl: Dsl, arrayName: String): CodeBlock {
     val resultArray = dsl.array(dsl.types.ANY, arrayName)
     val size = dsl.variable(dsl.types.INT, "size")
     val keys = dsl.array(type.keyType, "keys")
     val values = dsl.array(type.valueType, "values")
     val i = dsl.variable(dsl.types.INT, "i")
-    val key = dsl.variable(type.keyType, "key")
+    val entry = dsl.variable(entryType, "entry")
     return dsl.block {
       declare(resultArray, dsl.newSizedArray(dsl.types.ANY, 0), true)
       scope {
@@ -42,9 +53,9 @@ abstract class MapVariableBase(override val type: MapType, override val name: St
         declare(keys.defaultDeclaration(size))
         declare(values.defaultDeclaration(size))
         declare(i, "0".expr, true)
-        forEachLoop(key, keys()) {
-          statement { keys.set(i, loopVariable) }
-          statement { values.set(i, get(loopVariable)) }
+        forEachLoop(entry, entries()) {
+          statement { keys.set(i, entryKey(loopVariable)) }
+          statement { values.set(i, entryValue(loopVariable)) }
           statement { TextExpression("${i.toCode()}++") }
         }
 
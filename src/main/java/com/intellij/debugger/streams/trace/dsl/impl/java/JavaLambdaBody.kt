@@ -25,7 +25,7 @@ import com.intellij.debugger.streams.trace.dsl.StatementFactory
 class JavaLambdaBody(statementFactory: StatementFactory, override val lambdaArg: Expression) : JavaCodeBlock(statementFactory), LambdaBody {
   override fun toCode(indent: Int): String = if (isExpression()) getStatements().first().toCode() else super.toCode(indent)
 
-  fun isExpression(): Boolean = size == 1
+  fun isExpression(): Boolean = size == 1 && getStatements().first() is Expression
 
   override fun doReturn(expression: Expression) {
     if (size == 0) {
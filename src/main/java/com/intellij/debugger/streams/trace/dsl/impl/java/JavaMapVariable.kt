@@ -19,6 +19,8 @@ import com.intellij.debugger.streams.trace.dsl.Expression
 import com.intellij.debugger.streams.trace.dsl.Lambda
 import com.intellij.debugger.streams.trace.dsl.VariableDeclaration
 import com.intellij.debugger.streams.trace.dsl.impl.common.MapVariableBase
+import com.intellij.debugger.streams.trace.impl.handler.type.ClassTypeImpl
+import com.intellij.debugger.streams.trace.impl.handler.type.GenericType
 import com.intellij.debugger.streams.trace.impl.handler.type.MapType
 
 /**
@@ -26,6 +28,9 @@ import com.intellij.debugger.streams.trace.impl.handler.type.MapType
  */
 class JavaMapVariable(type: MapType, name: String)
   : MapVariableBase(type, name) {
+  override val entryType: GenericType =
+    ClassTypeImpl("java.util.Map.Entry<${type.keyType.genericTypeName}, ${type.valueType.genericTypeName}>")
+
   override fun get(key: Expression): Expression = call("get", key)
 
   override operator fun set(key: Expression, newValue: Expression): Expression = call("put", key, newValue)
@@ -34,6 +39,12 @@ class JavaMapVariable(type: MapType, name: String)
 
   override fun keys(): Expression = call("keySet")
 
+  override fun entries(): Expression = call("entrySet")
+
+  override fun entryKey(entry: Expression): Expression = entry.call("getKey")
+
+  override fun entryValue(entry: Expression): Expression = entry.call("getValue")
+
   override fun size(): Expression = call("size")
 
   override fun computeIfAbsent(key: Expression, supplier: Lambda): Expression = call("computeIfAbsent", key, supplier)
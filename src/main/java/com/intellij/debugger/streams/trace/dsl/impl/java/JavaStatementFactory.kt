@@ -65,6 +65,8 @@ class JavaStatementFactory : StatementFactory {
 
   override fun same(left: Expression, right: Expression): Expression = TextExpression("${left.toCode()} == ${right.toCode()}")
 
+  override fun lessThan(left: Expression, right: Expression): Expression = TextExpression("${left.toCode()} < ${right.toCode()}")
+
   override fun createIfBranch(condition: Expression, thenBlock: CodeBlock): IfBranch = JavaIfBranch(condition, thenBlock, this)
 
   override fun createAssignmentStatement(variable: Variable, expression: Expression): AssignmentStatement =
@@ -73,6 +75,9 @@ class JavaStatementFactory : StatementFactory {
   override fun createMapVariable(keyType: GenericType, valueType: GenericType, name: String, linked: Boolean): MapVariable =
     JavaMapVariable(if (linked) types.linkedMap(keyType, valueType) else types.map(keyType, valueType), name)
 
+  override fun createIdentityMapVariable(keyType: GenericType, valueType: GenericType, name: String): MapVariable =
+    JavaMapVariable(types.identityMap(keyType, valueType), name)
+
   override fun createArrayVariable(elementType: GenericType, name: String): ArrayVariable =
     JavaArrayVariable(types.array(elementType), name)
 
@@ -87,9 +92,21 @@ class JavaStatementFactory : StatementFactory {
   override fun createTimeVariableDeclaration(): VariableDeclaration =
     JavaVariableDeclaration(createVariable(types.TIME, "time"), false, types.TIME.defaultValue)
 
-  override fun currentTimeExpression(): Expression = TextExpression("time").call("get")
+  override fun currentTimeExpression(): Expression = TextExpression("time[0]")
+
+  override fun updateCurrentTimeExpression(): Expression = TextExpression("++time[0]")
+
+  override fun createTraceLimitDeclaration(limit: Int): VariableDeclaration =
+    JavaVariableDeclaration(createVariable(types.INT, "traceLimit"), false, "$limit")
 
-  override fun updateCurrentTimeExpression(): Expression = TextExpression("time").call("incrementAndGet")
+  override fun traceLimitExpression(): Expression = TextExpression("traceLimit")
+
+  override fun createRecordingDeclaration(): VariableDeclaration {
+    val type = types.array(types.BOOLEAN)
+    return JavaVariableDeclaration(createVariable(type, "isRecording"), false, type.defaultValue)
+  }
+
+  override fun isRecordingExpression(): Expression = TextExpression("isRecording[0]")
 
   override fun createNewArrayExpression(elementType: GenericType, vararg args: Expression): Expression {
     val elements = args.joinToString(separator = ", ") { it.toCode() }
@@ -111,5 +128,8 @@ class JavaStatementFactory : StatementFactory {
 
   override fun createListVariable(elementType: GenericType, name: String): ListVariable = JavaListVariable(types.list(elementType), name)
 
+  override fun createArrayBuilderVariable(elementType: GenericType, name: String): ArrayBuilderVariable =
+    JavaArrayBuilderVariable(types.arrayBuilder(elementType), name)
+
   override fun not(expression: Expression): Expression = TextExpression("!${expression.toCode()}")
 }
@@ -38,8 +38,10 @@ object JavaTypes : Types {
   override val EXCEPTION: GenericType = ClassTypeImpl("java.lang.Throwable")
   override val VOID: GenericType = GenericTypeImpl("void", "java.lang.Void", "null")
 
-  override val TIME: GenericType = ClassTypeImpl("java.util.concurrent.atomic.AtomicInteger",
-                                                 "new java.util.concurrent.atomic.AtomicInteger()")
+  override val TIME: GenericType = array(INT)
+  override val INT_CONSUMER: GenericType = ClassTypeImpl("java.util.function.IntConsumer")
+  override val RUNNABLE: GenericType = ClassTypeImpl("java.lang.Runnable")
+  override val THREAD: GenericType = ClassTypeImpl("java.lang.Thread")
   override val STRING: GenericType = ClassTypeImpl("java.lang.String", "\"\"")
   override val LONG: GenericType = GenericTypeImpl("long", "java.lang.Long", "0L")
 
@@ -52,9 +54,27 @@ object JavaTypes : Types {
   override fun linkedMap(keyType: GenericType, valueType: GenericType): MapType =
     MapTypeImpl(keyType, valueType, { keys, values -> "java.util.Map<$keys, $values>" }, "new java.util.LinkedHashMap<>()")
 
+  override fun identityMap(keyType: GenericType, valueType: GenericType): MapType =
+    MapTypeImpl(keyType, valueType, { keys, values -> "java.util.Map<$keys, $values>" }, "new java.util.IdentityHashMap<>()")
+
   override fun list(elementsType: GenericType): ListType =
     ListTypeImpl(elementsType, { "java.util.List<$it>" }, "new java.util.ArrayList<>()")
 
+  override fun arrayBuilder(elementType: GenericType): ArrayBuilderType {
+    val streamType = when (elementType) {
+      INT -> "java.util.stream.IntStream"
+      LONG -> "java.util.stream.LongStream"
+      DOUBLE -> "java.util.stream.DoubleStream"
+      else -> return ArrayBuilderTypeImpl(elementType, "java.util.stream.Stream.Builder<${elementType.genericTypeName}>",
+                                          "java.util.stream.Stream.builder()")
+    }
+
+    return ArrayBuilderTypeImpl(elementType, "$streamType.Builder", "$streamType.builder()")
+  }
+
+  override fun threadLocal(valueType: GenericType): GenericType =
+    ClassTypeImpl("java.lang.ThreadLocal<${valueType.genericTypeName}>", "new java.lang.ThreadLocal<>()")
+
   override fun nullable(typeSelector: Types.() -> GenericType): GenericType = this.typeSelector()
 
   private val optional: GenericType = ClassTypeImpl("java.util.Optional")
@@ -20,7 +20,6 @@ import com.intellij.debugger.streams.trace.TraceElement;
 import com.intellij.debugger.streams.wrapper.StreamCall;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -29,14 +28,14 @@ import java.util.Map;
  */
 public class FirstStateImpl extends StateBase implements NextAwareState {
   private final StreamCall myNextCall;
-  private final Map<TraceElement, List<TraceElement>> myToNext;
+  private final TraceElementsMapping myToNext;
 
   FirstStateImpl(@NotNull List<TraceElement> elements,
                  @NotNull StreamCall nextCall,
                  @NotNull Map<TraceElement, List<TraceElement>> toNextMapping) {
     super(elements);
     myNextCall = nextCall;
-    myToNext = toNextMapping;
+    myToNext = TraceElementsMapping.of(toNextMapping);
   }
 
   @NotNull
@@ -48,6 +47,6 @@ public class FirstStateImpl extends StateBase implements NextAwareState {
   @NotNull
   @Override
   public List<TraceElement> getNextValues(@NotNull TraceElement value) {
-    return myToNext.getOrDefault(value, Collections.emptyList());
+    return myToNext.get(value);
   }
 }
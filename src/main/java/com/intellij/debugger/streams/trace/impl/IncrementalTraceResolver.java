@@ -0,0 +1,216 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.impl;
+
+import com.intellij.debugger.streams.lib.ResolverFactory;
+import com.intellij.debugger.streams.resolve.ResolvedStreamCall;
+import com.intellij.debugger.streams.resolve.ResolvedStreamChain;
+import com.intellij.debugger.streams.resolve.ValuesOrderResolver;
+import com.intellij.debugger.streams.resolve.impl.ResolvedIntermediateCallImpl;
+import com.intellij.debugger.streams.resolve.impl.ResolvedStreamChainImpl;
+import com.intellij.debugger.streams.resolve.impl.ResolvedTerminatorCallImpl;
+import com.intellij.debugger.streams.trace.*;
+import com.intellij.debugger.streams.wrapper.IntermediateStreamCall;
+import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.intellij.debugger.streams.wrapper.TraceUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Resolves a trace call by call, so the state before a call becomes available as soon as traces of the call
+ * and of its predecessor are interpreted and resolved.
+ * <p>
+ * Traces of different calls are resolved concurrently on pooled threads, but the states are published in the chain order:
+ * the state before the first call, then states after every intermediate call
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class IncrementalTraceResolver {
+  private final StreamChain mySourceChain;
+  private final ResolverFactory myResolverFactory;
+  private final Executor myExecutor;
+  private final List<TraceInfo> myTraces = new ArrayList<>();
+  private final List<CompletableFuture<ValuesOrderResolver.Result>> myResolvedTraces = new ArrayList<>();
+  private final List<CompletableFuture<NextAwareState>> myStates = new ArrayList<>();
+  private CompletableFuture<Void> myPublished = CompletableFuture.completedFuture(null);
+
+  public IncrementalTraceResolver(@NotNull StreamChain chain, @NotNull ResolverFactory resolverFactory) {
+    mySourceChain = chain;
+    myResolverFactory = resolverFactory;
+    myExecutor = AppExecutorUtil.getAppExecutorService();
+  }
+
+  /**
+   * Starts resolving of a trace of the next call of the chain. Should be called from a single thread
+   *
+   * @param stateListener receives the state before the call, after states before all previous calls were received
+   */
+  public void addTrace(@NotNull TraceInfo trace, @NotNull Consumer<NextAwareState> stateListener) {
+    final int index = myTraces.size();
+    assert index < mySourceChain.length();
+
+    final ValuesOrderResolver resolver = myResolverFactory.getResolver(trace.getCall().getName());
+    final CompletableFuture<ValuesOrderResolver.Result> resolved = CompletableFuture.supplyAsync(() -> resolver.resolve(trace), myExecutor);
+
+    final CompletableFuture<NextAwareState> state;
+    if (index == 0) {
+      state = resolved.thenApply(x -> createFirstState(trace, x));
+    }
+    else {
+      final TraceInfo previousTrace = myTraces.get(index - 1);
+      state = myResolvedTraces.get(index - 1).thenCombine(resolved, (prev, next) -> createIntermediateState(index, previousTrace, trace,
+                                                                                                           prev, next));
+    }
+
+    myTraces.add(trace);
+    myResolvedTraces.add(resolved);
+    myStates.add(state);
+    myPublished = myPublished.thenCombine(state, (ignored, x) -> {
+      stateListener.accept(x);
+      return null;
+    });
+  }
+
+  /**
+   * Returns the resolved trace, it is completed after all states were passed to the listeners
+   */
+  @NotNull
+  public CompletableFuture<ResolvedTracingResult> finish(@NotNull TracingResult result) {
+    assert myTraces.size() == mySourceChain.length();
+
+    final int last = myTraces.size() - 1;
+    final TraceInfo terminatorTrace = myTraces.get(last);
+    final CompletableFuture<ValuesOrderResolver.Result> terminatorResolved = myResolvedTraces.get(last);
+    return myPublished.thenCombine(terminatorResolved, (ignored, resolved) -> {
+      final List<IntermediateStreamCall> intermediateCalls = mySourceChain.getIntermediateCalls();
+      final ResolvedStreamChainImpl.Builder chainBuilder = new ResolvedStreamChainImpl.Builder();
+      for (int i = 0; i < intermediateCalls.size(); i++) {
+        chainBuilder.addIntermediate(new ResolvedIntermediateCallImpl(intermediateCalls.get(i), myStates.get(i).join(),
+                                                                      (PrevAwareState)myStates.get(i + 1).join()));
+      }
+
+      chainBuilder.setTerminator(buildResolvedTerminationCall(result.getResult(), terminatorTrace, myStates.get(last).join(),
+                                                              resolved.getReverseOrder()));
+      return new MyResolvedResult(chainBuilder.build(), mySourceChain, result);
+    });
+  }
+
+  @NotNull
+  private static NextAwareState createFirstState(@NotNull TraceInfo trace, @NotNull ValuesOrderResolver.Result resolved) {
+    final List<TraceElement> valuesBeforeFirstCall = TraceUtil.sortedByTime(trace.getValuesOrderBefore().values());
+    return new FirstStateImpl(valuesBeforeFirstCall, trace.getCall(), resolved.getDirectOrder());
+  }
+
+  @NotNull
+  private NextAwareState createIntermediateState(int index,
+                                                 @NotNull TraceInfo previousTrace,
+                                                 @NotNull TraceInfo trace,
+                                                 @NotNull ValuesOrderResolver.Result previousResolved,
+                                                 @NotNull ValuesOrderResolver.Result resolved) {
+    final List<IntermediateStreamCall> intermediateCalls = mySourceChain.getIntermediateCalls();
+    final List<TraceElement> elements = index < intermediateCalls.size()
+                                        ? TraceUtil.sortedByTime(previousTrace.getValuesOrderAfter().values())
+                                        : TraceUtil.sortedByTime(trace.getValuesOrderBefore().values());
+    return new IntermediateStateImpl(elements, intermediateCalls.get(index - 1), mySourceChain.getCall(index),
+                                     previousResolved.getReverseOrder(), resolved.getDirectOrder());
+  }
+
+  @NotNull
+  private ResolvedStreamCall.Terminator buildResolvedTerminationCall(@NotNull TraceElement streamResult,
+                                                                     @NotNull TraceInfo terminatorTrace,
+                                                                     @NotNull NextAwareState previousState,
+                                                                     @NotNull Map<TraceElement, List<TraceElement>>
+                                                                       terminationToPrevMapping) {
+    final List<TraceElement> after = TraceUtil.sortedByTime(terminatorTrace.getValuesOrderAfter().values());
+    final TerminationStateImpl terminatorState =
+      new TerminationStateImpl(streamResult, previousState.getNextCall(), after, terminationToPrevMapping);
+    return new ResolvedTerminatorCallImpl(mySourceChain.getTerminationCall(), previousState, terminatorState);
+  }
+
+  private static class MyResolvedResult implements ResolvedTracingResult {
+    @NotNull private final ResolvedStreamChain myChain;
+    @NotNull private final StreamChain mySourceChain;
+    @NotNull private final TracingResult myResult;
+
+    MyResolvedResult(@NotNull ResolvedStreamChain resolvedStreamChain,
+                     @NotNull StreamChain sourceChain,
+                     @NotNull TracingResult result) {
+      myChain = resolvedStreamChain;
+      mySourceChain = sourceChain;
+      myResult = result;
+    }
+
+    @NotNull
+    @Override
+    public ResolvedStreamChain getResolvedChain() {
+      return myChain;
+    }
+
+    @NotNull
+    @Override
+    public StreamChain getSourceChain() {
+      return mySourceChain;
+    }
+
+    @Override
+    public boolean exceptionThrown() {
+      return myResult.exceptionThrown();
+    }
+
+    @Override
+    public boolean isTruncated() {
+      return myResult.isTruncated();
+    }
+
+    @NotNull
+    @Override
+    public List<ElementsCount> getElementsCount() {
+      return myResult.getElementsCount();
+    }
+
+    @Nullable
+    @Override
+    public String getAbortReason() {
+      return myResult.getAbortReason();
+    }
+
+    @NotNull
+    @Override
+    public List<CallProfile> getProfile() {
+      return myResult.getProfile();
+    }
+
+    @NotNull
+    @Override
+    public List<WorkerThreadProfile> getWorkerThreads() {
+      return myResult.getWorkerThreads();
+    }
+
+    @NotNull
+    @Override
+    public TraceElement getResult() {
+      return myResult.getResult();
+    }
+  }
+}
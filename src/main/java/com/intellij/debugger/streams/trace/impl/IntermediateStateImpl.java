@@ -20,7 +20,6 @@ import com.intellij.debugger.streams.trace.TraceElement;
 import com.intellij.debugger.streams.wrapper.StreamCall;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -28,8 +27,8 @@ import java.util.Map;
  * @author Vitaliy.Bibaev
  */
 public class IntermediateStateImpl extends StateBase implements BidirectionalAwareState {
-  private final Map<TraceElement, List<TraceElement>> myToPrev;
-  private final Map<TraceElement, List<TraceElement>> myToNext;
+  private final TraceElementsMapping myToPrev;
+  private final TraceElementsMapping myToNext;
   private final StreamCall myNextCall;
   private final StreamCall myPrevCall;
 
@@ -38,8 +37,8 @@ public class IntermediateStateImpl extends StateBase implements BidirectionalAwa
                         @NotNull Map<TraceElement, List<TraceElement>> toPrevMapping,
                         @NotNull Map<TraceElement, List<TraceElement>> toNextMapping) {
     super(elements);
-    myToPrev = toPrevMapping;
-    myToNext = toNextMapping;
+    myToPrev = TraceElementsMapping.of(toPrevMapping);
+    myToNext = TraceElementsMapping.of(toNextMapping);
 
     myPrevCall = prevCall;
     myNextCall = nextCall;
@@ -54,7 +53,7 @@ public class IntermediateStateImpl extends StateBase implements BidirectionalAwa
   @NotNull
   @Override
   public List<TraceElement> getPrevValues(@NotNull TraceElement value) {
-    return myToPrev.getOrDefault(value, Collections.emptyList());
+    return myToPrev.get(value);
   }
 
   @NotNull
@@ -66,6 +65,6 @@ public class IntermediateStateImpl extends StateBase implements BidirectionalAwa
   @NotNull
   @Override
   public List<TraceElement> getNextValues(@NotNull TraceElement value) {
-    return myToNext.getOrDefault(value, Collections.emptyList());
+    return myToNext.get(value);
   }
 }
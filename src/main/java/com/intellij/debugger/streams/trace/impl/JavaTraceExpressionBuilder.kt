@@ -19,6 +19,7 @@ import com.intellij.debugger.streams.lib.HandlerFactory
 import com.intellij.debugger.streams.psi.impl.LambdaToAnonymousTransformer
 import com.intellij.debugger.streams.psi.impl.MethodReferenceToLambdaTransformer
 import com.intellij.debugger.streams.psi.impl.ToObjectInheritorTransformer
+import com.intellij.debugger.streams.settings.StreamDebuggerSettings
 import com.intellij.debugger.streams.trace.dsl.impl.DslImpl
 import com.intellij.debugger.streams.trace.dsl.impl.java.JavaStatementFactory
 import com.intellij.debugger.streams.wrapper.StreamChain
@@ -26,18 +27,59 @@ import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.util.Computable
+import com.intellij.openapi.util.Key
 import com.intellij.psi.JavaPsiFacade
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiMember
+import com.intellij.psi.util.CachedValue
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import com.intellij.psi.util.PsiModificationTracker
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.util.containers.SLRUMap
 
 /**
  * @author Vitaliy.Bibaev
  */
-class JavaTraceExpressionBuilder(private val project: Project, handlerFactory: HandlerFactory)
+class JavaTraceExpressionBuilder(private val project: Project, private val handlerFactory: HandlerFactory)
   : TraceExpressionBuilderBase(DslImpl(JavaStatementFactory()), handlerFactory) {
   private companion object {
     private val LOG = Logger.getInstance(JavaTraceExpressionBuilder::class.java)
+
+    private const val CACHE_SIZE = 32
+    private val CACHE_KEY: Key<CachedValue<MyExpressionsCache>> = Key.create("StreamDebugger.TraceExpressionsCache")
   }
 
   override fun createTraceExpression(chain: StreamChain): String {
+    val cache = CachedValuesManager.getManager(project).getCachedValue(project, CACHE_KEY, CachedValueProvider<MyExpressionsCache> {
+      CachedValueProvider.Result.create(MyExpressionsCache(), PsiModificationTracker.MODIFICATION_COUNT)
+    }, false)
+    val key = ApplicationManager.getApplication().runReadAction(Computable<MyCacheKey> { createCacheKey(chain) })
+    val cached = cache.get(key)
+    if (cached != null) {
+      LOG.debug("trace expression is taken from the cache")
+      return cached
+    }
+
+    val result = buildExpression(chain)
+    cache.put(key, result)
+    return result
+  }
+
+  private fun createCacheKey(chain: StreamChain): MyCacheKey {
+    val calls = chain.intermediateCalls.map { "${it.name}(${it.typeBefore.genericTypeName} -> ${it.typeAfter.genericTypeName})" } +
+                chain.terminationCall.let { "${it.name}(${it.typeBefore.genericTypeName} -> ${it.resultType.genericTypeName})" }
+
+    // local variables visible from the chain affect the result of the psi transformations
+    val contextMember = PsiTreeUtil.getParentOfType(chain.context, PsiMember::class.java, false)
+    return MyCacheKey(chain.text, calls, contextMember, handlerFactory,
+                      StreamDebuggerSettings.getEffectiveElementsLimit(),
+                      StreamDebuggerSettings.getEffectiveTimeBudgetNanos(),
+                      StreamDebuggerSettings.getEffectiveRecordedElementsBudget(),
+                      StreamDebuggerSettings.isParallelTracingEnabled())
+  }
+
+  private fun buildExpression(chain: StreamChain): String {
     val codeBlock = super.createTraceExpression(chain)
     val elementFactory = JavaPsiFacade.getElementFactory(project)
 
@@ -59,4 +101,23 @@ class JavaTraceExpressionBuilder(private val project: Project, handlerFactory: H
         result
       })
   }
-}
\ No newline at end of file
+
+  private data class MyCacheKey(val chainText: String,
+                                val calls: List<String>,
+                                val contextMember: PsiElement?,
+                                val handlerFactory: HandlerFactory,
+                                val elementsLimit: Int,
+                                val timeBudget: Long,
+                                val recordedElementsBudget: Int,
+                                val isParallelTracingEnabled: Boolean)
+
+  private class MyExpressionsCache {
+    private val myExpressions = SLRUMap<MyCacheKey, String>(CACHE_SIZE, CACHE_SIZE)
+
+    @Synchronized
+    fun get(key: MyCacheKey): String? = myExpressions.get(key)
+
+    @Synchronized
+    fun put(key: MyCacheKey, expression: String) = myExpressions.put(key, expression)
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Calls which pass an element down the chain right when they take it, so the element after such a call is the element
+ * (or, for flatMap, one of the elements) which came to the call last in the same thread
+ *
+ * @author Vitaliy.Bibaev
+ */
+final class PassingCalls {
+  private static final Set<String> PARALLEL_CALLS = new HashSet<>(Arrays.asList(
+    "filter", "map", "mapToObj", "mapToInt", "mapToLong", "mapToDouble", "flatMap", "flatMapToInt", "flatMapToLong", "flatMapToDouble",
+    "peek", "boxed", "asLongStream", "asDoubleStream", "parallel", "sequential", "unordered", "onClose"));
+
+  // stateful calls of an ordered parallel stream buffer elements, but sequential ones pass or drop an element at once
+  private static final Set<String> SEQUENTIAL_CALLS = new HashSet<>(PARALLEL_CALLS);
+
+  static {
+    SEQUENTIAL_CALLS.addAll(Arrays.asList(
+      "distinct", "limit", "skip", "takeWhile", "dropWhile",
+      "atLeast", "atMost", "less", "greater", "filterBy", "filterKeys", "filterValues", "filterKeyValue", "nonNull", "nonNullKeys",
+      "nonNullValues", "remove", "removeBy", "removeKeys", "removeValues", "removeKeyValue", "select", "selectKeys", "selectValues",
+      "without", "peekKeys", "peekValues", "peekKeyValue", "keys", "values", "mapKeyValue", "mapKeys", "mapValues", "mapToEntry",
+      "mapToKey", "mapToValue", "elements", "invert", "join", "flatMapToObj", "flatMapToEntry", "cross", "flatMapToKey",
+      "flatMapToValue", "flatMapKeys", "flatMapValues", "flatMapKeyValue", "flatArray", "flatCollection", "distinctKeys",
+      "distinctValues"));
+  }
+
+  private PassingCalls() {
+  }
+
+  static boolean isPassedInParallel(@NotNull String callName) {
+    return PARALLEL_CALLS.contains(callName);
+  }
+
+  static boolean isPassedInSequential(@NotNull String callName) {
+    return SEQUENTIAL_CALLS.contains(callName);
+  }
+}
@@ -31,7 +31,7 @@ import java.util.Map;
 public class TerminationStateImpl extends StateBase implements PrevAwareState {
   private final TraceElement myResult;
   private final StreamCall myPrevCall;
-  private final Map<TraceElement, List<TraceElement>> myToPrev;
+  private final TraceElementsMapping myToPrev;
 
   TerminationStateImpl(@NotNull TraceElement result,
                        @NotNull StreamCall prevCall,
@@ -40,7 +40,7 @@ public class TerminationStateImpl extends StateBase implements PrevAwareState {
     super(elements);
     myResult = result;
     myPrevCall = prevCall;
-    myToPrev = toPrevMapping;
+    myToPrev = TraceElementsMapping.of(toPrevMapping);
   }
 
   @NotNull
@@ -58,6 +58,6 @@ public class TerminationStateImpl extends StateBase implements PrevAwareState {
   @NotNull
   @Override
   public List<TraceElement> getPrevValues(@NotNull TraceElement value) {
-    return myToPrev.getOrDefault(value, Collections.emptyList());
+    return myToPrev.get(value);
   }
 }
@@ -26,10 +26,16 @@ import org.jetbrains.annotations.Nullable;
 public class TraceElementImpl implements TraceElement, Comparable<TraceElement> {
   private final int myTime;
   private final Value myValue;
+  private final String myThreadName;
 
   public TraceElementImpl(int time, @Nullable Value value) {
+    this(time, value, null);
+  }
+
+  public TraceElementImpl(int time, @Nullable Value value, @Nullable String threadName) {
     myTime = time;
     myValue = value;
+    myThreadName = threadName;
   }
 
   public static TraceElement ofResultValue(@Nullable Value streamResult) {
@@ -62,6 +68,12 @@ public class TraceElementImpl implements TraceElement, Comparable<TraceElement>
     return myValue;
   }
 
+  @Nullable
+  @Override
+  public String getThreadName() {
+    return myThreadName;
+  }
+
   @Override
   public int compareTo(@NotNull TraceElement other) {
     return Integer.compare(myTime, other.getTime());
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.impl;
+
+import com.intellij.debugger.streams.trace.TraceElement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * An immutable compact representation of a mapping between trace elements of neighbour states.
+ * <p>
+ * Sources are kept as a sorted array of times, targets of the i-th source are stored in the {@code myTargets} array
+ * between {@code myOffsets[i]} and {@code myOffsets[i + 1]} as indices of distinct target elements sorted by time.
+ * Null sources and targets are skipped, targets of sources with the same time are merged
+ *
+ * @author Vitaliy.Bibaev
+ */
+final class TraceElementsMapping {
+  private final int[] mySourceTimes;
+  private final int[] myOffsets;
+  private final int[] myTargets;
+  private final TraceElement[] myTargetElements;
+
+  private TraceElementsMapping(@NotNull int[] sourceTimes,
+                               @NotNull int[] offsets,
+                               @NotNull int[] targets,
+                               @NotNull TraceElement[] targetElements) {
+    mySourceTimes = sourceTimes;
+    myOffsets = offsets;
+    myTargets = targets;
+    myTargetElements = targetElements;
+  }
+
+  @NotNull
+  static TraceElementsMapping of(@NotNull Map<TraceElement, List<TraceElement>> mapping) {
+    final TraceElement[] sources = mapping.keySet().stream().filter(Objects::nonNull).toArray(TraceElement[]::new);
+    Arrays.sort(sources, Comparator.comparingInt(TraceElement::getTime));
+
+    final TraceElement[] allTargets = mapping.values().stream()
+      .filter(Objects::nonNull)
+      .flatMap(List::stream)
+      .filter(Objects::nonNull)
+      .toArray(TraceElement[]::new);
+    Arrays.sort(allTargets, Comparator.comparingInt(TraceElement::getTime));
+    int distinctCount = 0;
+    for (final TraceElement target : allTargets) {
+      if (distinctCount == 0 || allTargets[distinctCount - 1].getTime() != target.getTime()) {
+        allTargets[distinctCount++] = target;
+      }
+    }
+
+    final TraceElement[] targetElements = Arrays.copyOf(allTargets, distinctCount);
+    final int[] targetTimes = new int[distinctCount];
+    for (int i = 0; i < distinctCount; i++) {
+      targetTimes[i] = targetElements[i].getTime();
+    }
+
+    final int[] sourceTimes = new int[sources.length];
+    final int[] offsets = new int[sources.length + 1];
+    final int[] targets = new int[allTargets.length];
+    int sourceCount = 0;
+    int offset = 0;
+    for (final TraceElement source : sources) {
+      if (sourceCount == 0 || sourceTimes[sourceCount - 1] != source.getTime()) {
+        sourceTimes[sourceCount] = source.getTime();
+        offsets[sourceCount] = offset;
+        sourceCount++;
+      }
+
+      final List<TraceElement> sourceTargets = mapping.get(source);
+      if (sourceTargets != null) {
+        for (final TraceElement target : sourceTargets) {
+          if (target != null) {
+            targets[offset++] = Arrays.binarySearch(targetTimes, target.getTime());
+          }
+        }
+      }
+    }
+
+    offsets[sourceCount] = offset;
+    return new TraceElementsMapping(Arrays.copyOf(sourceTimes, sourceCount), Arrays.copyOf(offsets, sourceCount + 1), targets,
+                                    targetElements);
+  }
+
+  @NotNull
+  List<TraceElement> get(@NotNull TraceElement source) {
+    final int index = Arrays.binarySearch(mySourceTimes, source.getTime());
+    if (index < 0) {
+      return Collections.emptyList();
+    }
+
+    final int from = myOffsets[index];
+    final int to = myOffsets[index + 1];
+    return new MyTargetsView(from, to);
+  }
+
+  private class MyTargetsView extends AbstractList<TraceElement> implements RandomAccess {
+    private final int myFrom;
+    private final int mySize;
+
+    MyTargetsView(int from, int to) {
+      myFrom = from;
+      mySize = to - from;
+    }
+
+    @Override
+    public TraceElement get(int index) {
+      if (index < 0 || index >= mySize) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + mySize);
+      }
+
+      return myTargetElements[myTargets[myFrom + index]];
+    }
+
+    @Override
+    public int size() {
+      return mySize;
+    }
+  }
+}
@@ -16,15 +16,21 @@
 package com.intellij.debugger.streams.trace.impl
 
 import com.intellij.debugger.streams.lib.HandlerFactory
+import com.intellij.debugger.streams.settings.StreamDebuggerSettings
 import com.intellij.debugger.streams.trace.IntermediateCallHandler
 import com.intellij.debugger.streams.trace.TerminatorCallHandler
 import com.intellij.debugger.streams.trace.TraceExpressionBuilder
 import com.intellij.debugger.streams.trace.TraceHandler
 import com.intellij.debugger.streams.trace.dsl.ArrayVariable
 import com.intellij.debugger.streams.trace.dsl.CodeBlock
+import com.intellij.debugger.streams.trace.dsl.CodeContext
 import com.intellij.debugger.streams.trace.dsl.Dsl
+import com.intellij.debugger.streams.trace.dsl.Expression
 import com.intellij.debugger.streams.trace.dsl.Variable
+import com.intellij.debugger.streams.trace.dsl.VariableDeclaration
 import com.intellij.debugger.streams.trace.dsl.impl.TextExpression
+import com.intellij.debugger.streams.trace.impl.handler.PeekCall
+import com.intellij.debugger.streams.trace.impl.handler.SequentialCall
 import com.intellij.debugger.streams.trace.impl.handler.type.GenericType
 import com.intellij.debugger.streams.wrapper.IntermediateStreamCall
 import com.intellij.debugger.streams.wrapper.StreamChain
@@ -36,16 +42,55 @@ import java.util.*
  */
 abstract class TraceExpressionBuilderBase(protected val dsl: Dsl, private val handlerFactory: HandlerFactory)
   : TraceExpressionBuilder {
+  companion object {
+    /**
+     * Evaluation of a traced chain is aborted by [java.util.concurrent.CancellationException] with a message starting with the prefix
+     */
+    const val ABORT_MESSAGE_PREFIX = "Stream tracing aborted: "
+
+    // the time and the cancellation are checked once per the given number of time updates, since the checks are slower
+    private const val BUDGET_CHECK_MASK = 1023
+  }
+
   protected val resultVariableName = "myRes"
+  private val elementsCount = dsl.array(dsl.types.INT, "elementsCount")
+  private val recordedCount = dsl.array(dsl.types.INT, "recordedCount")
+  private val recordedElementsCount = dsl.array(dsl.types.INT, "recordedElementsCount")
+  private val recordedPositions = dsl.array(dsl.types.BOOLEAN, "recordedPositions")
+  private val passingPositions = dsl.array(dsl.types.BOOLEAN, "passingPositions")
+  private val recordedBudget = dsl.variable(dsl.types.INT, "recordedBudget")
+  private val deadline = dsl.variable(dsl.types.LONG, "deadline")
+  private val evaluatingThread = dsl.variable(dsl.types.THREAD, "evaluatingThread")
+  private val wasInterrupted = dsl.variable(dsl.types.BOOLEAN, "wasInterrupted")
+  private val stageNanos = dsl.array(dsl.types.LONG, "stageNanos")
+  private val lastPeekNanos = dsl.array(dsl.types.LONG, "lastPeekNanos")
+  private val lastPeekPosition = dsl.array(dsl.types.INT, "lastPeekPosition")
+  private val timeRecorder = dsl.variable(dsl.types.INT_CONSUMER, "timeRecorder")
+
+  // a parallel chain records the position and the worker thread of every time, the global clock orders the times of all the threads
+  private val clock = dsl.array(dsl.types.INT, "clock")
+  private val threadIndex = dsl.array(dsl.types.INT, "threadIndex")
+  private val threadNames = dsl.list(dsl.types.STRING, "threadNames")
+  private val threadStates = dsl.variable(dsl.types.threadLocal(dsl.types.array(dsl.types.LONG)), "threadStates")
+  private val threadRecordedPositions = dsl.variable(dsl.types.threadLocal(dsl.types.array(dsl.types.BOOLEAN)), "threadRecordedPositions")
+  private val timePositions = dsl.linkedMap(dsl.types.INT, dsl.types.INT, "timePositions")
+  private val timeThreads = dsl.linkedMap(dsl.types.INT, dsl.types.INT, "timeThreads")
+  private val enterThread = dsl.variable(dsl.types.RUNNABLE, "enterThread")
+  private val leaveThread = dsl.variable(dsl.types.RUNNABLE, "leaveThread")
 
   override fun createTraceExpression(chain: StreamChain): String {
     val intermediateHandlers = chain.intermediateCalls.mapIndexedTo(ArrayList(), handlerFactory::getForIntermediate)
     val terminatorCall = chain.terminationCall
     val terminatorHandler = handlerFactory.getForTermination(terminatorCall, "evaluationResult[0]")
 
-    val traceChain = buildTraceChain(chain, intermediateHandlers, terminatorHandler)
+    val isParallel = StreamDebuggerSettings.isParallelTracingEnabled() && isRecordedByPeeksOnly(chain, intermediateHandlers)
+    val traceChain = buildTraceChain(chain, intermediateHandlers, terminatorHandler, isParallel)
+    val elementsLimit = StreamDebuggerSettings.getEffectiveElementsLimit()
+    val timeBudget = StreamDebuggerSettings.getEffectiveTimeBudgetNanos()
 
     val infoArraySize = 2 + intermediateHandlers.size
+    val positionsCount = intermediateHandlers.size + 1
+    val passingFlags = listOf(false) + chain.intermediateCalls.map { isPassedAtOnce(it.name, isParallel) }
     val info = dsl.array(dsl.types.ANY, "info")
     val streamResult = dsl.variable(dsl.types.nullable { ANY }, "streamResult")
     val declarations = buildDeclarations(intermediateHandlers, terminatorHandler)
@@ -54,6 +99,7 @@ abstract class TraceExpressionBuilderBase(protected val dsl: Dsl, private val ha
     val fillingInfoArray = buildFillInfo(intermediateHandlers, terminatorHandler, info)
 
     val result = dsl.variable(dsl.types.ANY, resultVariableName)
+    val threadsInfo = dsl.variable(dsl.types.ANY, "threadsInfo")
 
     return dsl.code {
       scope {
@@ -61,53 +107,273 @@ abstract class TraceExpressionBuilderBase(protected val dsl: Dsl, private val ha
         val startTime = declare(variable(types.LONG, "startTime"), "java.lang.System.nanoTime()".expr, false)
         declare(info, newSizedArray(types.ANY, infoArraySize), false)
         declare(timeDeclaration())
+        declare(traceLimitDeclaration(elementsLimit))
+        declare(elementsCount.defaultDeclaration(positionsCount.toString().expr))
+        declare(recordingDeclaration())
+        declare(recordedPositions.defaultDeclaration(positionsCount.toString().expr))
+        declare(recordedElementsCount.defaultDeclaration(positionsCount.toString().expr))
+        declare(passingPositions, newArray(types.BOOLEAN, *passingFlags.map { it.toString().expr }.toTypedArray()), false)
+        declare(recordedCount.defaultDeclaration("1".expr))
+        declare(recordedBudget, StreamDebuggerSettings.getEffectiveRecordedElementsBudget().toString().expr, false)
+        val deadlineValue = if (timeBudget == Long.MAX_VALUE) "java.lang.Long.MAX_VALUE" else "${startTime.toCode()} + ${timeBudget}L"
+        declare(deadline, deadlineValue.expr, false)
+        declare(evaluatingThread, "java.lang.Thread.currentThread()".expr, false)
+        // the debugged thread may be interrupted already, only an interrupt during the tracing cancels it
+        declare(wasInterrupted, "${evaluatingThread.toCode()}.isInterrupted()".expr, false)
+        declare(stageNanos.defaultDeclaration(positionsCount.toString().expr))
+        declare(lastPeekPosition.defaultDeclaration("1".expr))
+        declare(lastPeekNanos.defaultDeclaration("1".expr))
+        if (isParallel) add(buildThreadsDeclarations(positionsCount))
+        declare(timeRecorderDeclaration(isParallel))
         add(declarations)
+        statement { lastPeekNanos.set(0, "java.lang.System.nanoTime()".expr) }
         add(tracingCall)
+        // the interrupt of the cancelled tracing is not delivered to the debuggee, even if a worker thread aborted the chain
+        // or the tracing was cancelled after the last check
+        ifBranch(isInterruptedDuringTracing()) {
+          statement { TextExpression("java.lang.Thread.interrupted()") }
+        }
+        statement { addStageTime("java.lang.System.nanoTime()".expr) }
+        if (isParallel) {
+          // the handlers take the last time of the chain after the evaluation
+          statement { TextExpression("${currentTime().toCode()} = ${clock[0].toCode()}") }
+        }
         add(fillingInfoArray)
+        if (isParallel) add(buildThreadsInfo(threadsInfo))
 
         val elapsedTime = declare(array(types.LONG, "elapsedTime"),
                                   newArray(types.LONG, "java.lang.System.nanoTime() - ${startTime.toCode()}".expr), false)
-        result assign newArray(types.ANY, info, streamResult, elapsedTime)
+        val results = mutableListOf<Expression>(info, streamResult, elapsedTime, elementsCount, recordedElementsCount, stageNanos)
+        if (isParallel) results.add(threadsInfo)
+        result assign newArray(types.ANY, *results.toTypedArray())
       }
     }
   }
 
+  /**
+   * Handlers which replace arguments of the traced calls may record elements outside of peeks, such recording is not synchronized,
+   * so chains with these handlers are traced sequentially
+   */
+  private fun isRecordedByPeeksOnly(chain: StreamChain, intermediateCallHandlers: List<IntermediateCallHandler>): Boolean =
+    chain.intermediateCalls.zip(intermediateCallHandlers).all { (call, handler) -> handler.transformCall(call) === call }
+
+  private fun isPassedAtOnce(callName: String, isParallel: Boolean): Boolean =
+    if (isParallel) PassingCalls.isPassedInParallel(callName) else PassingCalls.isPassedInSequential(callName)
+
   private fun buildTraceChain(chain: StreamChain,
                               intermediateCallHandlers: List<IntermediateCallHandler>,
-                              terminatorHandler: TerminatorCallHandler): StreamChain {
+                              terminatorHandler: TerminatorCallHandler,
+                              isParallel: Boolean): StreamChain {
     val newIntermediateCalls = mutableListOf<IntermediateStreamCall>()
 
     val qualifierExpression = chain.qualifierExpression
-    newIntermediateCalls.add(createTimePeekCall(qualifierExpression.typeAfter))
+    if (!isParallel) {
+      // the time counter is not thread-safe, so the traced stream is evaluated sequentially
+      newIntermediateCalls.add(SequentialCall(qualifierExpression.typeAfter))
+    }
+    newIntermediateCalls.add(createTimePeekCall(qualifierExpression.typeAfter, 0))
 
     val intermediateCalls = chain.intermediateCalls
 
     assert(intermediateCalls.size == intermediateCallHandlers.size)
 
-    for ((call, handler) in intermediateCalls.zip(intermediateCallHandlers)) {
+    for ((i, pair) in intermediateCalls.zip(intermediateCallHandlers).withIndex()) {
+      val (call, handler) = pair
       newIntermediateCalls.addAll(handler.additionalCallsBefore())
 
       newIntermediateCalls.add(handler.transformCall(call))
-      newIntermediateCalls.add(createTimePeekCall(call.typeAfter))
+      newIntermediateCalls.add(createTimePeekCall(call.typeAfter, i + 1))
 
       newIntermediateCalls.addAll(handler.additionalCallsAfter())
     }
 
     newIntermediateCalls.addAll(terminatorHandler.additionalCallsBefore())
     val terminatorCall = terminatorHandler.transformCall(chain.terminationCall)
+    val tracedCalls = if (isParallel) synchronizePeeks(qualifierExpression.typeAfter, newIntermediateCalls) else newIntermediateCalls
 
-    return StreamChainImpl(qualifierExpression, newIntermediateCalls, terminatorCall,
+    return StreamChainImpl(qualifierExpression, tracedCalls, terminatorCall,
                            chain.context)
   }
 
-  private fun createTimePeekCall(elementType: GenericType): IntermediateStreamCall {
+  /**
+   * Drops the sequential calls added by handlers and synchronizes all the peeks.
+   * Handlers do not always specify the element types of their peeks, so the types are taken from the preceding calls
+   */
+  private fun synchronizePeeks(sourceType: GenericType, calls: List<IntermediateStreamCall>): List<IntermediateStreamCall> {
+    val result = mutableListOf<IntermediateStreamCall>()
+    var elementType = sourceType
+    for (call in calls) {
+      when (call) {
+        is SequentialCall -> Unit
+        is PeekCall -> result.add(synchronizedPeek(call, elementType))
+        else -> {
+          result.add(call)
+          elementType = call.typeAfter
+        }
+      }
+    }
+
+    return result
+  }
+
+  /**
+   * Runs the peek under the lock with the time of the current thread, since the peeks update shared counters and maps.
+   * The stream itself is evaluated in parallel: the lock is held only while an element is recorded
+   */
+  private fun synchronizedPeek(peek: IntermediateStreamCall, elementType: GenericType): IntermediateStreamCall {
+    // TODO: avoid language dependent code
+    val consumerType = when (elementType) {
+      dsl.types.INT -> "java.util.function.IntConsumer"
+      dsl.types.LONG -> "java.util.function.LongConsumer"
+      dsl.types.DOUBLE -> "java.util.function.DoubleConsumer"
+      else -> "java.util.function.Consumer<${elementType.genericTypeName}>"
+    }
+
+    val recorder = "(($consumerType) ${peek.arguments.single().text})"
+    val lambda = "element -> { synchronized (${clock.toCode()}) { ${enterThread.toCode()}.run(); $recorder.accept(element); " +
+                 "${leaveThread.toCode()}.run(); } }"
+    return dsl.createPeekCall(elementType, lambda)
+  }
+
+  /**
+   * Every thread keeps its own time, the nanoseconds and the position of its last peek, its index in the thread names,
+   * and whether the elements it passes at every position are recorded.
+   * They are loaded into the shared variables when a peek of the thread starts and saved when it finishes
+   */
+  private fun buildThreadsDeclarations(positionsCount: Int): CodeBlock {
+    val state = dsl.array(dsl.types.LONG, "state")
+    val positions = dsl.array(dsl.types.BOOLEAN, "positions")
+    return dsl.block {
+      declare(clock.defaultDeclaration("1".expr))
+      declare(threadIndex.defaultDeclaration("1".expr))
+      declare(threadNames.defaultDeclaration())
+      declare(threadStates, threadStates.type.defaultValue.expr, false)
+      declare(threadRecordedPositions, threadRecordedPositions.type.defaultValue.expr, false)
+      declare(timePositions.defaultDeclaration())
+      declare(timeThreads.defaultDeclaration())
+      declare(runnableDeclaration(enterThread) {
+        declare(state, threadStates.call("get"), true)
+        ifBranch(state same nullExpression) {
+          // the thread names are updated under the lock of the peeks
+          state assign dsl.newArray(dsl.types.LONG, TextExpression("0L"), TextExpression("java.lang.System.nanoTime()"),
+                                    TextExpression("0L"), threadNames.size())
+          statement { threadNames.add(TextExpression("java.lang.Thread.currentThread().getName()")) }
+          statement { threadStates.call("set", state) }
+        }
+        statement { TextExpression("${currentTime().toCode()} = (int) ${state[0].toCode()}") }
+        statement { lastPeekNanos.set(0, state[1]) }
+        statement { lastPeekPosition.set(0, TextExpression("(int) ${state[2].toCode()}")) }
+        statement { threadIndex.set(0, TextExpression("(int) ${state[3].toCode()}")) }
+        declare(positions, threadRecordedPositions.call("get"), true)
+        ifBranch(positions same nullExpression) {
+          positions assign dsl.newSizedArray(dsl.types.BOOLEAN, positionsCount)
+          statement { threadRecordedPositions.call("set", positions) }
+        }
+        statement { copyArray(positions, recordedPositions, positionsCount) }
+        statement { TextExpression("${isRecording().toCode()} = ${recordedPositions[lastPeekPosition[0]].toCode()}") }
+      })
+      declare(runnableDeclaration(leaveThread) {
+        declare(state, threadStates.call("get"), false)
+        statement { state.set(0, currentTime()) }
+        statement { state.set(1, lastPeekNanos[0]) }
+        statement { state.set(2, lastPeekPosition[0]) }
+        statement { copyArray(recordedPositions, threadRecordedPositions.call("get"), positionsCount) }
+      })
+    }
+  }
+
+  private fun copyArray(from: Expression, to: Expression, length: Int): Expression =
+    TextExpression("java.lang.System.arraycopy(${from.toCode()}, 0, ${to.toCode()}, 0, $length)")
+
+  private fun runnableDeclaration(runnable: Variable, init: CodeContext.() -> Unit): VariableDeclaration =
+    dsl.declaration(runnable, TextExpression("() -> {\n${dsl.block(init).toCode(1)}}"), false)
+
+  private fun buildThreadsInfo(threadsInfo: Variable): CodeBlock {
+    return dsl.block {
+      add(timePositions.convertToArray(this, "positionsArray"))
+      add(timeThreads.convertToArray(this, "threadsArray"))
+      declare(threadsInfo, newArray(types.ANY, threadNames.call("toArray"), "positionsArray".expr, "threadsArray".expr,
+                                    newArray(types.INT, currentTime())), false)
+    }
+  }
+
+  /**
+   * Updates the time and counts the elements passed through the given position of the chain,
+   * including ones which are not recorded by handlers because of the trace limit.
+   * An element is recorded if it is one of the first elements taken from the source or from a call which buffers elements,
+   * the elements it turns into after the calls passing it at once are recorded as well. So every recorded element has its
+   * recorded origin, and the before and after elements of such calls stay consistent.
+   * The time since the previous peek is added to the call after the position passed by the previous peek:
+   * the call either passed the element further or requested the next one from the source.
+   * Aborts the evaluation if the budget is exhausted or the evaluating thread is interrupted during the tracing.
+   * The recorder is declared once and shared by all the peeks, so the debuggee defines a single class for its body
+   */
+  private fun timeRecorderDeclaration(isParallel: Boolean): VariableDeclaration {
+    val lambda = dsl.lambda("position") { position ->
+      val currentNanos = declare(dsl.variable(dsl.types.LONG, "currentNanos"), TextExpression("java.lang.System.nanoTime()"), false)
+      statement { addStageTime(currentNanos) }
+      statement { lastPeekNanos.set(0, currentNanos) }
+      statement { lastPeekPosition.set(TextExpression("0"), position) }
+      if (isParallel) {
+        // the time of the current thread is restored by the peek, the global clock orders the times of all the threads
+        statement { TextExpression("${dsl.currentTime().toCode()} = ++${clock[0].toCode()}") }
+      }
+      else {
+        statement { dsl.updateTime() }
+      }
+      ifBranch(passingPositions[position]) {
+        statement { recordedPositions.set(position, recordedPositions[TextExpression("${position.toCode()} - 1")]) }
+      }.elseBranch {
+        statement { recordedPositions.set(position, with(dsl) { elementsCount[position] lessThan traceLimit() }) }
+      }
+      statement { TextExpression("${dsl.isRecording().toCode()} = ${recordedPositions[position].toCode()}") }
+      ifBranch(dsl.isRecording()) {
+        statement { TextExpression("${recordedCount[0].toCode()}++") }
+        statement { TextExpression("${recordedElementsCount[position].toCode()}++") }
+        if (isParallel) {
+          statement { timePositions.set(dsl.currentTime(), position) }
+          statement { timeThreads.set(dsl.currentTime(), threadIndex[0]) }
+        }
+      }
+      statement { TextExpression("${elementsCount[position].toCode()}++") }
+      ifBranch(with(dsl) { recordedBudget lessThan recordedCount[0] }) {
+        abort("too many elements recorded")
+      }
+      ifBranch(TextExpression("(${dsl.currentTime().toCode()} & $BUDGET_CHECK_MASK) == 0")) {
+        ifBranch(with(dsl) { deadline lessThan currentNanos }) {
+          abort("time limit exceeded")
+        }
+        // a worker thread of a parallel chain is not interrupted when the evaluation is cancelled, so the evaluating thread is checked
+        ifBranch(isInterruptedDuringTracing()) {
+          ifBranch(TextExpression("${evaluatingThread.toCode()} == java.lang.Thread.currentThread()")) {
+            statement { TextExpression("java.lang.Thread.interrupted()") }
+          }
+          abort("cancelled")
+        }
+      }
+    }
+
+    return dsl.declaration(timeRecorder, lambda, false)
+  }
+
+  private fun createTimePeekCall(elementType: GenericType, position: Int): IntermediateStreamCall {
     val lambda = dsl.lambda("x") {
-      doReturn(dsl.updateTime())
+      statement { timeRecorder.call("accept", TextExpression(position.toString())) }
     }.toCode()
 
     return dsl.createPeekCall(elementType, lambda)
   }
 
+  private fun isInterruptedDuringTracing(): Expression =
+    TextExpression("!${wasInterrupted.toCode()} && ${evaluatingThread.toCode()}.isInterrupted()")
+
+  private fun addStageTime(currentNanos: Expression): Expression =
+    TextExpression("${stageNanos[lastPeekPosition[0]].toCode()} += ${currentNanos.toCode()} - ${lastPeekNanos[0].toCode()}")
+
+  private fun CodeBlock.abort(reason: String) {
+    statement { TextExpression("throw new java.util.concurrent.CancellationException(\"$ABORT_MESSAGE_PREFIX$reason\")") }
+  }
+
   private fun buildDeclarations(intermediateCallsHandlers: List<IntermediateCallHandler>,
                                 terminatorHandler: TerminatorCallHandler): CodeBlock {
     return dsl.block {
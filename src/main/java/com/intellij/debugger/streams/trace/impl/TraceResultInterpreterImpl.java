@@ -2,26 +2,38 @@
 package com.intellij.debugger.streams.trace.impl;
 
 import com.intellij.debugger.streams.lib.InterpreterFactory;
+import com.intellij.debugger.streams.trace.CallProfile;
 import com.intellij.debugger.streams.trace.CallTraceInterpreter;
+import com.intellij.debugger.streams.trace.ElementsCount;
+import com.intellij.debugger.streams.trace.PinnedTraceValues;
 import com.intellij.debugger.streams.trace.TraceInfo;
 import com.intellij.debugger.streams.trace.TraceResultInterpreter;
 import com.intellij.debugger.streams.trace.TracingResult;
+import com.intellij.debugger.streams.trace.WorkerThreadProfile;
+import com.intellij.debugger.streams.trace.impl.interpret.ArrayReferenceUtil;
 import com.intellij.debugger.streams.trace.impl.interpret.ValuesOrderInfo;
 import com.intellij.debugger.streams.wrapper.StreamCall;
 import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.intellij.debugger.streams.wrapper.TraceUtil;
 import com.intellij.openapi.diagnostic.Logger;
 import com.sun.jdi.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * @author Vitaliy.Bibaev
  */
 public class TraceResultInterpreterImpl implements TraceResultInterpreter {
   private static final Logger LOG = Logger.getInstance(TraceResultInterpreterImpl.class);
+  private static final String ABORT_EXCEPTION_CLASS_NAME = "java.util.concurrent.CancellationException";
   private final InterpreterFactory myInterpreterFactory;
 
   public TraceResultInterpreterImpl(@NotNull InterpreterFactory interpreterFactory) {
@@ -30,28 +42,85 @@ public class TraceResultInterpreterImpl implements TraceResultInterpreter {
 
   @NotNull
   @Override
-  public TracingResult interpret(@NotNull StreamChain chain, @NotNull ArrayReference resultArray) {
-    final ArrayReference info = (ArrayReference)resultArray.getValue(0);
-    final ArrayReference result = (ArrayReference)resultArray.getValue(1);
+  public TracingResult interpret(@NotNull StreamChain chain,
+                                 @NotNull ArrayReference resultArray,
+                                 @NotNull Consumer<TraceInfo> traceConsumer) {
+    // the result array references all the traced values, so they stay available after the debuggee is resumed
+    final PinnedTraceValues pinnedValues = createPinnedValues();
+    pinnedValues.pin(resultArray);
+    try {
+      return interpret(chain, resultArray, traceConsumer, pinnedValues);
+    }
+    catch (Throwable t) {
+      // the result is not shown, so nobody else releases the values
+      pinnedValues.release();
+      throw t;
+    }
+  }
+
+  @NotNull
+  protected PinnedTraceValues createPinnedValues() {
+    return new PinnedTraceValues();
+  }
+
+  @NotNull
+  private TracingResult interpret(@NotNull StreamChain chain,
+                                  @NotNull ArrayReference resultArray,
+                                  @NotNull Consumer<TraceInfo> traceConsumer,
+                                  @NotNull PinnedTraceValues pinnedValues) {
+    final List<Value> values = ArrayReferenceUtil.getValues(resultArray);
+    final ArrayReference info = (ArrayReference)values.get(0);
+    final ArrayReference result = (ArrayReference)values.get(1);
     final Value streamResult = result.getValue(0);
-    final Value time = resultArray.getValue(2);
+    final Value time = values.get(2);
     logTime(time);
-    final List<TraceInfo> trace = getTrace(chain, info);
-    return new TracingResultImpl(chain, TraceElementImpl.ofResultValue(streamResult), trace, isException(result));
+    final WorkerThreadsTimeline timeline = values.size() > 6 ? WorkerThreadsTimeline.read(chain, values.get(6)) : null;
+    final List<TraceInfo> trace = getTrace(chain, info, timeline, traceConsumer);
+    final List<ElementsCount> elementsCount =
+      values.size() > 4 ? getElementsCount((ArrayReference)values.get(3), (ArrayReference)values.get(4)) : Collections.emptyList();
+    final List<CallProfile> profile =
+      values.size() > 5 ? getProfile(chain, (ArrayReference)values.get(3), (ArrayReference)values.get(5)) : Collections.emptyList();
+    final List<WorkerThreadProfile> threads = timeline == null ? Collections.emptyList() : timeline.getThreadProfiles();
+    final boolean isException = isException(result);
+    final String abortReason = isException ? getAbortReason(streamResult) : null;
+    if (abortReason != null) {
+      LOG.info("evaluation aborted: " + abortReason);
+      return new TracingResultImpl(chain, TraceElementImpl.ofResultValue(null), trace, false, elementsCount, abortReason, profile,
+                                   threads, pinnedValues);
+    }
+
+    return new TracingResultImpl(chain, TraceElementImpl.ofResultValue(streamResult), trace, isException, elementsCount, null, profile,
+                                 threads, pinnedValues);
   }
 
+  /**
+   * Times of a chain traced in parallel are known only when all the calls are interpreted, so the trace is passed to the consumer at once
+   */
   @NotNull
-  private List<TraceInfo> getTrace(@NotNull StreamChain chain, @NotNull ArrayReference info) {
+  private List<TraceInfo> getTrace(@NotNull StreamChain chain,
+                                   @NotNull ArrayReference info,
+                                   @Nullable WorkerThreadsTimeline timeline,
+                                   @NotNull Consumer<TraceInfo> traceConsumer) {
     final int callCount = chain.length();
     final List<TraceInfo> result = new ArrayList<>(callCount);
+    final List<Value> traces = ArrayReferenceUtil.getValues(info);
 
     for (int i = 0; i < callCount; i++) {
       final StreamCall call = chain.getCall(i);
-      final Value trace = info.getValue(i);
+      final Value trace = traces.get(i);
       final CallTraceInterpreter interpreter = myInterpreterFactory.getInterpreter(call.getName());
 
       final TraceInfo traceInfo = trace == null ? ValuesOrderInfo.empty(call) : interpreter.resolve(call, trace);
       result.add(traceInfo);
+      if (timeline == null) {
+        traceConsumer.accept(traceInfo);
+      }
+    }
+
+    if (timeline != null) {
+      final List<TraceInfo> reordered = timeline.reorder(result);
+      reordered.forEach(traceConsumer);
+      return reordered;
     }
 
     return result;
@@ -64,6 +133,72 @@ public class TraceResultInterpreterImpl implements TraceResultInterpreter {
     LOG.info("evaluation completed in " + elapsedMillis + "ms");
   }
 
+  @NotNull
+  private static List<CallProfile> getProfile(@NotNull StreamChain chain,
+                                              @NotNull ArrayReference elementsCountArray,
+                                              @NotNull ArrayReference stageNanosArray) {
+    final int[] elementsCount = ArrayReferenceUtil.getIntValues(elementsCountArray);
+    final long[] stageNanos = ArrayReferenceUtil.getLongValues(stageNanosArray);
+    final int callCount = chain.length();
+    if (elementsCount.length != callCount || stageNanos.length != callCount) {
+      LOG.warn("profile of the chain has unexpected size");
+      return Collections.emptyList();
+    }
+
+    final List<CallProfile> result = new ArrayList<>(callCount);
+    for (int i = 0; i < callCount; i++) {
+      final int elementsAfter = i + 1 < callCount ? elementsCount[i + 1] : 0;
+      result.add(new CallProfile(chain.getCall(i), stageNanos[i], elementsCount[i], elementsAfter));
+    }
+
+    return result;
+  }
+
+  @NotNull
+  private static List<ElementsCount> getElementsCount(@NotNull ArrayReference elementsCountArray,
+                                                      @NotNull ArrayReference recordedCountArray) {
+    final int[] elementsCount = ArrayReferenceUtil.getIntValues(elementsCountArray);
+    final int[] recordedCount = ArrayReferenceUtil.getIntValues(recordedCountArray);
+    if (elementsCount.length != recordedCount.length) {
+      LOG.warn("numbers of passed and recorded elements have different sizes");
+      return Collections.emptyList();
+    }
+
+    final List<ElementsCount> result = new ArrayList<>(elementsCount.length);
+    for (int i = 0; i < elementsCount.length; i++) {
+      if (recordedCount[i] < elementsCount[i]) {
+        LOG.info("trace is truncated: " + recordedCount[i] + " of " + elementsCount[i] + " elements are recorded at position " + i);
+      }
+
+      result.add(new ElementsCount(elementsCount[i], recordedCount[i]));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the reason if the exception was thrown by the trace expression itself to abort the evaluation.
+   * A ForkJoin task rethrows an exception of a worker thread as a new exception of the same class without a message
+   * and with the original one as its cause, so the whole chain of causes is checked
+   */
+  @Nullable
+  private static String getAbortReason(@Nullable Value exception) {
+    final Set<ObjectReference> visited = new HashSet<>();
+    while (exception instanceof ObjectReference && visited.add((ObjectReference)exception)) {
+      final ObjectReference reference = (ObjectReference)exception;
+      if (ABORT_EXCEPTION_CLASS_NAME.equals(reference.referenceType().name())) {
+        final String message = TraceUtil.tryExtractExceptionMessage(reference);
+        if (message != null && message.startsWith(TraceExpressionBuilderBase.ABORT_MESSAGE_PREFIX)) {
+          return message.substring(TraceExpressionBuilderBase.ABORT_MESSAGE_PREFIX.length());
+        }
+      }
+
+      exception = TraceUtil.tryExtractExceptionCause(reference);
+    }
+
+    return null;
+  }
+
   private static boolean isException(@NotNull ArrayReference result) {
     final ReferenceType type = result.referenceType();
     if (type instanceof ArrayType) {
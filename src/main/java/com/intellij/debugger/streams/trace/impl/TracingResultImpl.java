@@ -16,22 +16,12 @@
 package com.intellij.debugger.streams.trace.impl;
 
 import com.intellij.debugger.streams.lib.ResolverFactory;
-import com.intellij.debugger.streams.resolve.ResolvedStreamCall;
-import com.intellij.debugger.streams.resolve.ResolvedStreamChain;
-import com.intellij.debugger.streams.resolve.ValuesOrderResolver;
-import com.intellij.debugger.streams.resolve.impl.ResolvedIntermediateCallImpl;
-import com.intellij.debugger.streams.resolve.impl.ResolvedStreamChainImpl;
-import com.intellij.debugger.streams.resolve.impl.ResolvedTerminatorCallImpl;
 import com.intellij.debugger.streams.trace.*;
-import com.intellij.debugger.streams.wrapper.IntermediateStreamCall;
 import com.intellij.debugger.streams.wrapper.StreamChain;
-import com.intellij.debugger.streams.wrapper.TraceUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * @author Vitaliy.Bibaev
@@ -40,16 +30,31 @@ public class TracingResultImpl implements TracingResult {
   private final TraceElement myStreamResult;
   private final List<TraceInfo> myTrace;
   private final boolean myIsResultException;
+  private final List<ElementsCount> myElementsCount;
+  private final String myAbortReason;
+  private final List<CallProfile> myProfile;
+  private final List<WorkerThreadProfile> myWorkerThreads;
+  private final PinnedTraceValues myPinnedValues;
   private final StreamChain mySourceChain;
 
   TracingResultImpl(@NotNull StreamChain chain,
                     @NotNull TraceElement streamResult,
                     @NotNull List<TraceInfo> trace,
-                    boolean isResultException) {
+                    boolean isResultException,
+                    @NotNull List<ElementsCount> elementsCount,
+                    @Nullable String abortReason,
+                    @NotNull List<CallProfile> profile,
+                    @NotNull List<WorkerThreadProfile> workerThreads,
+                    @NotNull PinnedTraceValues pinnedValues) {
     myStreamResult = streamResult;
     myTrace = trace;
     mySourceChain = chain;
     myIsResultException = isResultException;
+    myElementsCount = elementsCount;
+    myAbortReason = abortReason;
+    myProfile = profile;
+    myWorkerThreads = workerThreads;
+    myPinnedValues = pinnedValues;
   }
 
   @NotNull
@@ -63,100 +68,55 @@ public class TracingResultImpl implements TracingResult {
     return myIsResultException;
   }
 
-  @NotNull
   @Override
-  public List<TraceInfo> getTrace() {
-    return myTrace;
+  public boolean isTruncated() {
+    return myElementsCount.stream().anyMatch(ElementsCount::isTruncated);
   }
 
   @NotNull
   @Override
-  public ResolvedTracingResult resolve(@NotNull ResolverFactory resolverFactory) {
-    assert myTrace.size() == mySourceChain.length();
-
-    List<ValuesOrderResolver.Result> resolvedTraces = myTrace.stream()
-      .map(x -> resolverFactory.getResolver(x.getCall().getName()).resolve(x))
-      .collect(Collectors.toList());
-
-    final TraceInfo firstCallTrace = myTrace.get(0);
-    final List<IntermediateStreamCall> intermediateCalls = mySourceChain.getIntermediateCalls();
-
-    final ResolvedStreamChainImpl.Builder chainBuilder = new ResolvedStreamChainImpl.Builder();
-    final List<TraceElement> valuesBeforeFirstCall = TraceUtil.sortedByTime(firstCallTrace.getValuesOrderBefore().values());
-    final FirstStateImpl firstState = new FirstStateImpl(valuesBeforeFirstCall, firstCallTrace.getCall(),
-                                                         resolvedTraces.get(0).getDirectOrder());
-
-    if (intermediateCalls.isEmpty()) {
-      chainBuilder.setTerminator(buildResolvedTerminationCall(myTrace.get(0), firstState, resolvedTraces.get(0).getReverseOrder()));
-    }
-    else {
-      final ArrayList<IntermediateStateImpl> states = new ArrayList<>();
-
-      for (int i = 0; i < intermediateCalls.size() - 1; i++) {
-        states.add(new IntermediateStateImpl(TraceUtil.sortedByTime(myTrace.get(i).getValuesOrderAfter().values()),
-                                             intermediateCalls.get(i),
-                                             intermediateCalls.get(i + 1),
-                                             resolvedTraces.get(i).getReverseOrder(),
-                                             resolvedTraces.get(i + 1).getDirectOrder()));
-      }
-
-      states.add(new IntermediateStateImpl(TraceUtil.sortedByTime(myTrace.get(myTrace.size() - 1).getValuesOrderBefore().values()),
-                                           intermediateCalls.get(intermediateCalls.size() - 1),
-                                           mySourceChain.getTerminationCall(),
-                                           resolvedTraces.get(resolvedTraces.size() - 2).getReverseOrder(),
-                                           resolvedTraces.get(resolvedTraces.size() - 1).getDirectOrder()));
-
-      chainBuilder.addIntermediate(new ResolvedIntermediateCallImpl(intermediateCalls.get(0), firstState, states.get(0)));
-      for (int i = 1; i < states.size(); i++) {
-        chainBuilder.addIntermediate(new ResolvedIntermediateCallImpl(intermediateCalls.get(i), states.get(i - 1), states.get(i)));
-      }
-
-      chainBuilder.setTerminator(buildResolvedTerminationCall(myTrace.get(myTrace.size() - 1), states.get(states.size() - 1),
-                                                              resolvedTraces.get(resolvedTraces.size() - 1).getReverseOrder()));
-    }
-
-    return new MyResolvedResult(chainBuilder.build());
+  public List<ElementsCount> getElementsCount() {
+    return myElementsCount;
   }
 
-  private ResolvedStreamCall.Terminator buildResolvedTerminationCall(@NotNull TraceInfo terminatorTrace,
-                                                                     @NotNull NextAwareState previousState,
-                                                                     @NotNull Map<TraceElement, List<TraceElement>>
-                                                                       terminationToPrevMapping) {
-    final List<TraceElement> after = TraceUtil.sortedByTime(terminatorTrace.getValuesOrderAfter().values());
-    final TerminationStateImpl terminatorState =
-      new TerminationStateImpl(myStreamResult, previousState.getNextCall(), after, terminationToPrevMapping);
-    return new ResolvedTerminatorCallImpl(mySourceChain.getTerminationCall(), previousState, terminatorState);
+  @Nullable
+  @Override
+  public String getAbortReason() {
+    return myAbortReason;
   }
 
-  private class MyResolvedResult implements ResolvedTracingResult {
-
-    @NotNull private final ResolvedStreamChain myChain;
+  @NotNull
+  @Override
+  public List<CallProfile> getProfile() {
+    return myProfile;
+  }
 
-    MyResolvedResult(@NotNull ResolvedStreamChain resolvedStreamChain) {
-      myChain = resolvedStreamChain;
-    }
+  @NotNull
+  @Override
+  public List<WorkerThreadProfile> getWorkerThreads() {
+    return myWorkerThreads;
+  }
 
-    @NotNull
-    @Override
-    public ResolvedStreamChain getResolvedChain() {
-      return myChain;
-    }
+  @NotNull
+  @Override
+  public PinnedTraceValues getPinnedValues() {
+    return myPinnedValues;
+  }
 
-    @NotNull
-    @Override
-    public StreamChain getSourceChain() {
-      return mySourceChain;
-    }
+  @NotNull
+  @Override
+  public List<TraceInfo> getTrace() {
+    return myTrace;
+  }
 
-    @Override
-    public boolean exceptionThrown() {
-      return myIsResultException;
-    }
+  @NotNull
+  @Override
+  public ResolvedTracingResult resolve(@NotNull ResolverFactory resolverFactory) {
+    assert myTrace.size() == mySourceChain.length();
 
-    @NotNull
-    @Override
-    public TraceElement getResult() {
-      return myStreamResult;
-    }
+    final IncrementalTraceResolver resolver = new IncrementalTraceResolver(mySourceChain, resolverFactory);
+    myTrace.forEach(trace -> resolver.addTrace(trace, state -> {
+    }));
+    return resolver.finish(this).join();
   }
 }
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.impl;
+
+import com.intellij.debugger.streams.trace.TraceElement;
+import com.intellij.debugger.streams.trace.TraceInfo;
+import com.intellij.debugger.streams.trace.WorkerThreadProfile;
+import com.intellij.debugger.streams.trace.impl.interpret.ArrayReferenceUtil;
+import com.intellij.debugger.streams.wrapper.StreamCall;
+import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.intellij.openapi.diagnostic.Logger;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.StringReference;
+import com.sun.jdi.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Orders the times recorded by the worker threads of a chain traced in parallel.
+ * <p>
+ * The global clock interleaves peeks of different threads, but resolvers expect an element to pass a call before the next element does.
+ * So the times of a thread are grouped into runs: a run starts when the thread takes an element from the source or from a call
+ * which buffers elements, and lasts while the element goes down the chain. Runs are ordered by their first times,
+ * times inside a run keep their order. It respects the happens-before order, since threads interact only through buffering calls
+ *
+ * @author Vitaliy.Bibaev
+ */
+class WorkerThreadsTimeline {
+  private static final Logger LOG = Logger.getInstance(WorkerThreadsTimeline.class);
+
+  private final List<String> myCallNames;
+  private final List<String> myThreadNames;
+  private final int[] myTimes;
+  private final int[] myPositions;
+  private final int[] myThreads;
+  private final int myLastTime;
+  private final Map<Integer, Integer> myTimeIndices;
+  private final int[] myRunStarts;
+
+  /**
+   * Every call of the chain, including the terminator, follows the position with the same index
+   */
+  WorkerThreadsTimeline(@NotNull List<String> callNames,
+                        @NotNull List<String> threadNames,
+                        @NotNull int[] times,
+                        @NotNull int[] positions,
+                        @NotNull int[] threads,
+                        int lastTime) {
+    myCallNames = callNames;
+    myThreadNames = threadNames;
+    myTimes = times;
+    myPositions = positions;
+    myThreads = threads;
+    myLastTime = lastTime;
+    myTimeIndices = new HashMap<>(times.length * 2);
+    for (int i = 0; i < times.length; i++) {
+      myTimeIndices.put(times[i], i);
+    }
+
+    myRunStarts = findRunStarts();
+  }
+
+  /**
+   * Returns null if the chain was traced sequentially
+   */
+  @Nullable
+  static WorkerThreadsTimeline read(@NotNull StreamChain chain, @Nullable Value threadsInfo) {
+    if (!(threadsInfo instanceof ArrayReference)) {
+      return null;
+    }
+
+    final List<Value> values = ArrayReferenceUtil.getValues((ArrayReference)threadsInfo);
+    if (values.size() != 4) {
+      LOG.warn("threads info has unexpected size");
+      return null;
+    }
+
+    final List<String> threadNames = new ArrayList<>();
+    for (final Value name : ArrayReferenceUtil.getValues((ArrayReference)values.get(0))) {
+      threadNames.add(name instanceof StringReference ? ((StringReference)name).value() : "unknown");
+    }
+
+    final List<Value> positions = ArrayReferenceUtil.getValues((ArrayReference)values.get(1));
+    final List<Value> threads = ArrayReferenceUtil.getValues((ArrayReference)values.get(2));
+    final int[] times = ArrayReferenceUtil.getIntValues((ArrayReference)positions.get(0));
+    final int[] timePositions = ArrayReferenceUtil.getIntValues((ArrayReference)positions.get(1));
+    final int[] timeThreads = ArrayReferenceUtil.getIntValues((ArrayReference)threads.get(1));
+    final int lastTime = ArrayReferenceUtil.getIntValues((ArrayReference)values.get(3))[0];
+    if (timePositions.length != times.length || timeThreads.length != times.length) {
+      LOG.warn("positions and threads of the times have different sizes");
+      return null;
+    }
+
+    final List<String> callNames = new ArrayList<>(chain.length());
+    for (int i = 0; i < chain.length(); i++) {
+      callNames.add(chain.getCall(i).getName());
+    }
+
+    return new WorkerThreadsTimeline(callNames, threadNames, times, timePositions, timeThreads, lastTime);
+  }
+
+  @NotNull
+  List<WorkerThreadProfile> getThreadProfiles() {
+    final int[][] elements = new int[myThreadNames.size()][myCallNames.size()];
+    for (int i = 0; i < myTimes.length; i++) {
+      elements[myThreads[i]][myPositions[i]]++;
+    }
+
+    final List<WorkerThreadProfile> result = new ArrayList<>(myThreadNames.size());
+    for (int thread = 0; thread < myThreadNames.size(); thread++) {
+      result.add(new WorkerThreadProfile(myThreadNames.get(thread), elements[thread]));
+    }
+
+    return result;
+  }
+
+  /**
+   * Replaces the times of the elements with their ranks in the runs order, and marks the elements with their worker threads.
+   * Times after the last time of the clock are given by interpreters to the result of the chain, they are kept
+   */
+  @NotNull
+  List<TraceInfo> reorder(@NotNull List<TraceInfo> trace) {
+    final Set<Integer> times = new HashSet<>();
+    final Consumer<TraceElement> timesCollector = element -> {
+      if (element.getTime() <= myLastTime) {
+        times.add(element.getTime());
+      }
+    };
+    for (final TraceInfo info : trace) {
+      forEachElement(info, timesCollector);
+    }
+
+    final Map<Integer, Integer> newTimes = rankTimes(times);
+    final List<TraceInfo> result = new ArrayList<>(trace.size());
+    for (final TraceInfo info : trace) {
+      result.add(new MyReorderedInfo(info, element -> reorder(element, newTimes)));
+    }
+
+    return result;
+  }
+
+  /**
+   * Maps the times to their ranks, starting from 1, in the order of their runs. A time which is not recorded by the peeks
+   * is a run itself
+   */
+  @NotNull
+  Map<Integer, Integer> rankTimes(@NotNull Set<Integer> times) {
+    // times are positive, so the pair of the run start and the time is ordered as a single long
+    final long[] keys = new long[times.size()];
+    int i = 0;
+    for (final int time : times) {
+      final Integer index = myTimeIndices.get(time);
+      final long runStart = index == null ? time : myRunStarts[index];
+      keys[i++] = (runStart << 32) | time;
+    }
+
+    Arrays.sort(keys);
+    final Map<Integer, Integer> newTimes = new HashMap<>(keys.length * 2);
+    for (int rank = 0; rank < keys.length; rank++) {
+      newTimes.put((int)keys[rank], rank + 1);
+    }
+
+    return newTimes;
+  }
+
+  @NotNull
+  private TraceElement reorder(@NotNull TraceElement element, @NotNull Map<Integer, Integer> newTimes) {
+    final int time = element.getTime();
+    final Integer newTime = newTimes.get(time);
+    if (newTime == null) {
+      return element;
+    }
+
+    final Integer index = myTimeIndices.get(time);
+    final String threadName = index == null ? null : myThreadNames.get(myThreads[index]);
+    return new TraceElementImpl(newTime, element.getValue(), threadName);
+  }
+
+  @NotNull
+  private int[] findRunStarts() {
+    final int threadsCount = myThreadNames.size();
+    final int[] runStart = new int[threadsCount];
+    final int[] runStartPosition = new int[threadsCount];
+    final int[] lastPosition = new int[threadsCount];
+    Arrays.fill(runStart, -1);
+
+    final int[] result = new int[myTimes.length];
+    for (int i = 0; i < myTimes.length; i++) {
+      final int thread = myThreads[i];
+      final int position = myPositions[i];
+
+      // a position before the last one is taken by the next element produced by flatMap
+      final boolean isSameRun = runStart[thread] != -1 &&
+                                position > runStartPosition[thread] &&
+                                (position <= lastPosition[thread] || isPassedThrough(lastPosition[thread], position));
+      if (!isSameRun) {
+        runStart[thread] = myTimes[i];
+        runStartPosition[thread] = position;
+      }
+
+      lastPosition[thread] = position;
+      result[i] = runStart[thread];
+    }
+
+    return result;
+  }
+
+  private boolean isPassedThrough(int fromPosition, int toPosition) {
+    for (int callIndex = fromPosition; callIndex < toPosition; callIndex++) {
+      if (!PassingCalls.isPassedInParallel(myCallNames.get(callIndex))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static void forEachElement(@NotNull TraceInfo info, @NotNull Consumer<TraceElement> consumer) {
+    info.getValuesOrderBefore().values().forEach(consumer);
+    info.getValuesOrderAfter().values().forEach(consumer);
+    forEachElement(info.getDirectTrace(), consumer);
+    forEachElement(info.getReverseTrace(), consumer);
+  }
+
+  private static void forEachElement(@Nullable Map<TraceElement, List<TraceElement>> trace, @NotNull Consumer<TraceElement> consumer) {
+    if (trace != null) {
+      trace.forEach((element, elements) -> {
+        consumer.accept(element);
+        elements.forEach(consumer);
+      });
+    }
+  }
+
+  private static class MyReorderedInfo implements TraceInfo {
+    private final StreamCall myCall;
+    private final Map<Integer, TraceElement> myValuesOrderBefore;
+    private final Map<Integer, TraceElement> myValuesOrderAfter;
+    private final Map<TraceElement, List<TraceElement>> myDirectTrace;
+    private final Map<TraceElement, List<TraceElement>> myReverseTrace;
+
+    MyReorderedInfo(@NotNull TraceInfo info, @NotNull UnaryOperator<TraceElement> mapper) {
+      myCall = info.getCall();
+      myValuesOrderBefore = reorderValues(info.getValuesOrderBefore(), mapper);
+      myValuesOrderAfter = reorderValues(info.getValuesOrderAfter(), mapper);
+      myDirectTrace = mapTrace(info.getDirectTrace(), mapper);
+      myReverseTrace = mapTrace(info.getReverseTrace(), mapper);
+    }
+
+    @NotNull
+    @Override
+    public StreamCall getCall() {
+      return myCall;
+    }
+
+    @NotNull
+    @Override
+    public Map<Integer, TraceElement> getValuesOrderBefore() {
+      return myValuesOrderBefore;
+    }
+
+    @NotNull
+    @Override
+    public Map<Integer, TraceElement> getValuesOrderAfter() {
+      return myValuesOrderAfter;
+    }
+
+    @Nullable
+    @Override
+    public Map<TraceElement, List<TraceElement>> getDirectTrace() {
+      return myDirectTrace;
+    }
+
+    @Nullable
+    @Override
+    public Map<TraceElement, List<TraceElement>> getReverseTrace() {
+      return myReverseTrace;
+    }
+
+    @NotNull
+    private static Map<Integer, TraceElement> reorderValues(@NotNull Map<Integer, TraceElement> values,
+                                                            @NotNull UnaryOperator<TraceElement> mapper) {
+      final List<TraceElement> elements = new ArrayList<>(values.size());
+      for (final TraceElement element : values.values()) {
+        elements.add(mapper.apply(element));
+      }
+
+      elements.sort(Comparator.comparingInt(TraceElement::getTime));
+      final Map<Integer, TraceElement> result = new LinkedHashMap<>(elements.size() * 2);
+      for (final TraceElement element : elements) {
+        result.put(element.getTime(), element);
+      }
+
+      return result;
+    }
+
+    @Nullable
+    private static Map<TraceElement, List<TraceElement>> mapTrace(@Nullable Map<TraceElement, List<TraceElement>> trace,
+                                                                  @NotNull UnaryOperator<TraceElement> mapper) {
+      if (trace == null) {
+        return null;
+      }
+
+      final Map<TraceElement, List<TraceElement>> result = new LinkedHashMap<>(trace.size() * 2);
+      trace.forEach((element, elements) -> {
+        final List<TraceElement> mapped = new ArrayList<>(elements.size());
+        for (final TraceElement linked : elements) {
+          mapped.add(mapper.apply(linked));
+        }
+
+        result.put(mapper.apply(element), mapped);
+      });
+      return result;
+    }
+  }
+}
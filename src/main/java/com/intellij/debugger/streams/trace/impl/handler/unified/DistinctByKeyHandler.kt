@@ -23,7 +23,6 @@ import com.intellij.debugger.streams.wrapper.IntermediateStreamCall
 import com.intellij.debugger.streams.wrapper.impl.CallArgumentImpl
 import com.intellij.debugger.streams.wrapper.impl.IntermediateStreamCallImpl
 import com.intellij.openapi.util.TextRange
-import one.util.streamex.StreamEx
 
 /**
  * @author Vitaliy.Bibaev
@@ -64,9 +63,11 @@ open class DistinctByKeyHandler(callNumber: Int, private val myCall: Intermediat
     val newKeyExtractor = dsl.lambda("x") {
       val valueBefore = declare(dsl.variable(myCall.typeBefore, "valueBefore"), lambdaArg, false)
       doReturn(myExtractorVariable.call("andThen", dsl.lambda("t") {
-        statement { myBeforeTimes.add(dsl.currentTime()) }
-        statement { myBeforeValues.add(valueBefore) }
-        statement { myKeys.add(lambdaArg) }
+        ifBranch(dsl.isRecording()) {
+          statement { myBeforeTimes.add(dsl.currentTime()) }
+          statement { myBeforeValues.add(valueBefore) }
+          statement { myKeys.add(lambdaArg) }
+        }
         doReturn(lambdaArg)
       }).call("apply", TextExpression("x")))
     }.toCode()
@@ -74,36 +75,30 @@ open class DistinctByKeyHandler(callNumber: Int, private val myCall: Intermediat
   }
 
   override fun prepareResult(): CodeBlock {
-    val keys2TimesBefore = dsl.map(dsl.types.ANY, dsl.types.list(dsl.types.INT), "keys2Times")
+    val valuesAfter2Times = dsl.identityMap(dsl.types.ANY, dsl.types.INT, "valuesAfter2Times")
+    val keys2TimesAfter = dsl.map(dsl.types.ANY, dsl.types.INT, "keys2TimesAfter")
     val transitions = dsl.map(dsl.types.INT, dsl.types.INT, "transitionsMap")
-    StreamEx.of(1).distinct().toList()
     return dsl.block {
       add(myPeekHandler.prepareResult())
-      declare(keys2TimesBefore.defaultDeclaration())
+      declare(valuesAfter2Times.defaultDeclaration())
+      declare(keys2TimesAfter.defaultDeclaration())
       declare(transitions.defaultDeclaration())
 
-      integerIteration(myKeys.size(), block@ this) {
-        val key = declare(variable(types.ANY, "key"), myKeys.get(loopVariable), false)
-        val lst = list(dsl.types.INT, "lst")
-        declare(lst, keys2TimesBefore.computeIfAbsent(key, lambda("k") {
-          doReturn(newList(types.INT))
-        }), false)
-        statement { lst.add(myBeforeTimes.get(loopVariable)) }
+      forEachLoop(variable(types.INT, "afterTime"), myTime2ValueAfter.keys()) {
+        statement { valuesAfter2Times.set(myTime2ValueAfter.get(loopVariable), loopVariable) }
       }
 
-      forEachLoop(variable(types.INT, "afterTime"), myTime2ValueAfter.keys()) {
-        val afterTime = loopVariable
-        val valueAfter = declare(variable(types.ANY, "valueAfter"), myTime2ValueAfter.get(loopVariable), false)
-        val key = declare(variable(types.ANY, "key"), nullExpression, true)
-        integerIteration(myBeforeTimes.size(), forEachLoop@ this) {
-          ifBranch((valueAfter same myBeforeValues.get(loopVariable)) and !transitions.contains(myBeforeTimes.get(loopVariable))) {
-            key assign myKeys.get(loopVariable)
-            statement { breakIteration() }
-          }
+      // keys are recorded in the order of elements, so an element passed by distinct precedes all other elements with its key
+      integerIteration(myKeys.size(), this) {
+        val key = declare(variable(types.ANY, "key"), myKeys.get(loopVariable), false)
+        val valueBefore = declare(variable(types.ANY, "valueBefore"), myBeforeValues.get(loopVariable), false)
+        ifBranch(valuesAfter2Times.contains(valueBefore)) {
+          statement { keys2TimesAfter.set(key, valuesAfter2Times.get(valueBefore)) }
         }
 
-        forEachLoop(variable(types.INT, "beforeTime"), keys2TimesBefore.get(key)) {
-          statement { transitions.set(loopVariable, afterTime) }
+        // the element passed by distinct may be beyond the trace limit
+        ifBranch(keys2TimesAfter.contains(key)) {
+          statement { transitions.set(myBeforeTimes.get(loopVariable), keys2TimesAfter.get(key)) }
         }
       }
 
@@ -119,7 +114,9 @@ open class DistinctByKeyHandler(callNumber: Int, private val myCall: Intermediat
   override fun additionalCallsAfter(): List<IntermediateStreamCall> {
     val callsAfter = ArrayList(myPeekHandler.additionalCallsAfter())
     val lambda = dsl.lambda("x") {
-      doReturn(myTime2ValueAfter.set(dsl.currentTime(), lambdaArg))
+      ifBranch(dsl.isRecording()) {
+        statement { myTime2ValueAfter.set(dsl.currentTime(), lambdaArg) }
+      }
     }
 
     callsAfter.add(dsl.createPeekCall(myTypeAfter, lambda.toCode()))
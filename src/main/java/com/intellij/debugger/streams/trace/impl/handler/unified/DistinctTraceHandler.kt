@@ -34,28 +34,20 @@ class DistinctTraceHandler(num: Int, private val myCall: IntermediateStreamCall,
     val before = myPeekTracer.beforeMap
     val after = myPeekTracer.afterMap
     return dsl.block {
-      val nestedMapType = types.map(types.INT, myCall.typeBefore)
       val mapping = linkedMap(types.INT, types.INT, "mapping")
       declare(mapping.defaultDeclaration())
-      val eqClasses = map(myCall.typeBefore, nestedMapType, "eqClasses")
-      declare(eqClasses, TextExpression(eqClasses.type.defaultValue), false)
-      forEachLoop(variable(types.INT, "beforeTime"), before.keys()) {
-        val beforeValue = declare(variable(myCall.typeBefore, "beforeValue"), before.get(loopVariable), false)
-        val computeIfAbsentExpression = eqClasses.computeIfAbsent(beforeValue, lambda("key") {
-          doReturn(TextExpression(nestedMapType.defaultValue))
-        })
-        val classItems = map(types.INT, myCall.typeBefore, "classItems")
-        declare(classItems, computeIfAbsentExpression, false)
-        statement { classItems.set(loopVariable, beforeValue) }
+      // every value after distinct is the representative of its equivalence class
+      val eqClasses = map(myCall.typeAfter, types.INT, "eqClasses")
+      declare(eqClasses.defaultDeclaration())
+      forEachLoop(variable(types.INT, "afterTime"), after.keys()) {
+        statement { eqClasses.set(after.get(loopVariable), loopVariable) }
       }
 
-      forEachLoop(variable(types.INT, "afterTime"), after.keys()) {
-        val afterTime = loopVariable
-        val afterValue = declare(variable(myCall.typeAfter, "afterValue"), after.get(loopVariable), false)
-        val classes = map(types.INT, myCall.typeBefore, "classes")
-        declare(classes, eqClasses.get(afterValue), false)
-        forEachLoop(variable(types.INT, "classElementTime"), classes.keys()) {
-          statement { mapping.set(loopVariable, afterTime) }
+      forEachLoop(variable(types.INT, "beforeTime"), before.keys()) {
+        val beforeValue = declare(variable(myCall.typeBefore, "beforeValue"), before.get(loopVariable), false)
+        // the representative of the class may be beyond the trace limit
+        ifBranch(eqClasses.contains(beforeValue)) {
+          statement { mapping.set(loopVariable, eqClasses.get(beforeValue)) }
         }
       }
 
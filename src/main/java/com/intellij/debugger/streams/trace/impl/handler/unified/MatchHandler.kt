@@ -37,7 +37,7 @@ class MatchHandler(private val call: TerminatorStreamCall, dsl: Dsl) : HandlerBa
     val PREDICATE_NAME = "predicate42"
   }
 
-  private val myPeekHandler = PeekTraceHandler(0, "filterMatch", call.typeBefore, call.typeBefore, dsl)
+  private val myPeekHandler = PeekTraceHandler.create(0, "filterMatch", call.typeBefore, call.typeBefore, dsl)
   private val myPredicateVariable = dsl.variable(ClassTypeImpl(call.arguments.first().type), PREDICATE_NAME)
   override fun additionalVariablesDeclaration(): List<VariableDeclaration> {
     val variables: MutableList<VariableDeclaration> = mutableListOf()
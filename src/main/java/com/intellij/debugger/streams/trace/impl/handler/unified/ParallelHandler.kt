@@ -16,10 +16,8 @@
 package com.intellij.debugger.streams.trace.impl.handler.unified
 
 import com.intellij.debugger.streams.trace.dsl.Dsl
-import com.intellij.debugger.streams.trace.impl.handler.type.GenericType
+import com.intellij.debugger.streams.trace.impl.handler.SequentialCall
 import com.intellij.debugger.streams.wrapper.IntermediateStreamCall
-import com.intellij.debugger.streams.wrapper.impl.IntermediateStreamCallImpl
-import com.intellij.openapi.util.TextRange
 
 /**
  * @author Vitaliy.Bibaev
@@ -31,7 +29,4 @@ class ParallelHandler(num: Int, private val call: IntermediateStreamCall, dsl: D
     calls.add(0, SequentialCall(call.typeBefore))
     return calls
   }
-
-  private class SequentialCall(elementsType: GenericType)
-    : IntermediateStreamCallImpl("sequential", emptyList(), elementsType, elementsType, TextRange.EMPTY_RANGE)
 }
\ No newline at end of file
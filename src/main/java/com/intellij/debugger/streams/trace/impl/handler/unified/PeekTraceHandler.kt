@@ -15,9 +15,11 @@
  */
 package com.intellij.debugger.streams.trace.impl.handler.unified
 
+import com.intellij.debugger.streams.trace.IntermediateCallHandler
 import com.intellij.debugger.streams.trace.dsl.CodeBlock
 import com.intellij.debugger.streams.trace.dsl.Dsl
 import com.intellij.debugger.streams.trace.dsl.Expression
+import com.intellij.debugger.streams.trace.dsl.MapVariable
 import com.intellij.debugger.streams.trace.dsl.VariableDeclaration
 import com.intellij.debugger.streams.trace.dsl.impl.TextExpression
 import com.intellij.debugger.streams.trace.impl.handler.type.GenericType
@@ -28,6 +30,13 @@ import com.intellij.debugger.streams.wrapper.IntermediateStreamCall
  */
 open class PeekTraceHandler(num: Int, callName: String, private val myTypeBefore: GenericType, typeAfter: GenericType, dsl: Dsl)
   : HandlerBase.Intermediate(dsl) {
+  companion object {
+    fun create(num: Int, callName: String, typeBefore: GenericType, typeAfter: GenericType, dsl: Dsl): IntermediateCallHandler =
+      if (PrimitivePeekTraceHandler.isApplicable(typeBefore, typeAfter, dsl))
+        PrimitivePeekTraceHandler(num, callName, typeBefore, typeAfter, dsl)
+      else PeekTraceHandler(num, callName, typeBefore, typeAfter, dsl)
+  }
+
   val beforeMap = dsl.linkedMap(dsl.types.INT, myTypeBefore, "${callName}Peek${num}Before")
   val afterMap = dsl.linkedMap(dsl.types.INT, typeAfter, "${callName}Peek${num}After")
   override fun additionalVariablesDeclaration(): List<VariableDeclaration> =
@@ -45,7 +54,7 @@ open class PeekTraceHandler(num: Int, callName: String, private val myTypeBefore
 
   override fun additionalCallsBefore(): List<IntermediateStreamCall> {
     val lambda = dsl.lambda("x") {
-      doReturn(beforeMap.set(dsl.currentTime(), lambdaArg))
+      recordIfTraced(beforeMap, lambdaArg)
     }.toCode()
 
     return listOf(dsl.createPeekCall(myTypeBefore, lambda))
@@ -53,9 +62,15 @@ open class PeekTraceHandler(num: Int, callName: String, private val myTypeBefore
 
   override fun additionalCallsAfter(): List<IntermediateStreamCall> {
     val lambda = dsl.lambda("x") {
-      doReturn(afterMap.set(dsl.currentTime(), lambdaArg))
+      recordIfTraced(afterMap, lambdaArg)
     }.toCode()
 
     return listOf(dsl.createPeekCall(myTypeBefore, lambda))
   }
+
+  private fun CodeBlock.recordIfTraced(map: MapVariable, value: Expression) {
+    ifBranch(dsl.isRecording()) {
+      statement { map.set(dsl.currentTime(), value) }
+    }
+  }
 }
\ No newline at end of file
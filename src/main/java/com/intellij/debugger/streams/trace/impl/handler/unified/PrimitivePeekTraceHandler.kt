@@ -0,0 +1,82 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.impl.handler.unified
+
+import com.intellij.debugger.streams.trace.dsl.CodeBlock
+import com.intellij.debugger.streams.trace.dsl.Dsl
+import com.intellij.debugger.streams.trace.dsl.Expression
+import com.intellij.debugger.streams.trace.dsl.VariableDeclaration
+import com.intellij.debugger.streams.trace.dsl.impl.TextExpression
+import com.intellij.debugger.streams.trace.impl.handler.type.GenericType
+import com.intellij.debugger.streams.wrapper.IntermediateStreamCall
+
+/**
+ * Does the same as [PeekTraceHandler], but stores times and values in growable primitive arrays to avoid boxing
+ * of primitive stream elements in the debuggee
+ *
+ * @author Vitaliy.Bibaev
+ */
+class PrimitivePeekTraceHandler(num: Int, callName: String, private val myTypeBefore: GenericType, typeAfter: GenericType,
+                                dsl: Dsl) : HandlerBase.Intermediate(dsl) {
+  companion object {
+    fun isApplicable(typeBefore: GenericType, typeAfter: GenericType, dsl: Dsl): Boolean =
+      isPrimitive(typeBefore, dsl) || isPrimitive(typeAfter, dsl)
+
+    private fun isPrimitive(type: GenericType, dsl: Dsl): Boolean =
+      type == dsl.types.INT || type == dsl.types.LONG || type == dsl.types.DOUBLE
+  }
+
+  private val myTimesBefore = dsl.arrayBuilder(dsl.types.INT, "${callName}Peek${num}BeforeTimes")
+  private val myValuesBefore = dsl.arrayBuilder(myTypeBefore, "${callName}Peek${num}BeforeValues")
+  private val myTimesAfter = dsl.arrayBuilder(dsl.types.INT, "${callName}Peek${num}AfterTimes")
+  private val myValuesAfter = dsl.arrayBuilder(typeAfter, "${callName}Peek${num}AfterValues")
+
+  override fun additionalVariablesDeclaration(): List<VariableDeclaration> =
+    listOf(myTimesBefore.defaultDeclaration(), myValuesBefore.defaultDeclaration(),
+           myTimesAfter.defaultDeclaration(), myValuesAfter.defaultDeclaration())
+
+  override fun prepareResult(): CodeBlock {
+    return dsl.block {
+      declare(array(types.ANY, "beforeArray"), newArray(types.ANY, myTimesBefore.toArray(), myValuesBefore.toArray()), false)
+      declare(array(types.ANY, "afterArray"), newArray(types.ANY, myTimesAfter.toArray(), myValuesAfter.toArray()), false)
+    }
+  }
+
+  override fun getResultExpression(): Expression =
+    dsl.newArray(dsl.types.ANY, TextExpression("beforeArray"), TextExpression("afterArray"))
+
+  override fun additionalCallsBefore(): List<IntermediateStreamCall> {
+    val lambda = dsl.lambda("x") {
+      ifBranch(dsl.isRecording()) {
+        statement { myTimesBefore.add(dsl.currentTime()) }
+        statement { myValuesBefore.add(lambdaArg) }
+      }
+    }.toCode()
+
+    return listOf(dsl.createPeekCall(myTypeBefore, lambda))
+  }
+
+  override fun additionalCallsAfter(): List<IntermediateStreamCall> {
+    val lambda = dsl.lambda("x") {
+      ifBranch(dsl.isRecording()) {
+        statement { myTimesAfter.add(dsl.currentTime()) }
+        statement { myValuesAfter.add(lambdaArg) }
+      }
+    }.toCode()
+
+    return listOf(dsl.createPeekCall(myTypeBefore, lambda))
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.impl.interpret;
+
+import com.intellij.debugger.streams.trace.impl.interpret.ex.UnexpectedValueTypeException;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.IntegerValue;
+import com.sun.jdi.LongValue;
+import com.sun.jdi.Value;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads arrays from the debuggee with a single request per array instead of a request per element
+ *
+ * @author Vitaliy.Bibaev
+ */
+public class ArrayReferenceUtil {
+  private ArrayReferenceUtil() {}
+
+  @NotNull
+  public static List<Value> getValues(@NotNull ArrayReference array) {
+    final int length = array.length();
+    return length == 0 ? Collections.emptyList() : array.getValues(0, length);
+  }
+
+  @NotNull
+  public static int[] getIntValues(@NotNull ArrayReference array) {
+    final List<Value> mirrors = getValues(array);
+    final int[] result = new int[mirrors.size()];
+    for (int i = 0; i < result.length; i++) {
+      final Value value = mirrors.get(i);
+      if (!(value instanceof IntegerValue)) {
+        throw new UnexpectedValueTypeException("int array expected, but " + array.type().name() + " received");
+      }
+
+      result[i] = ((IntegerValue)value).value();
+    }
+
+    return result;
+  }
+
+  @NotNull
+  public static long[] getLongValues(@NotNull ArrayReference array) {
+    final List<Value> mirrors = getValues(array);
+    final long[] result = new long[mirrors.size()];
+    for (int i = 0; i < result.length; i++) {
+      final Value value = mirrors.get(i);
+      if (!(value instanceof LongValue)) {
+        throw new UnexpectedValueTypeException("long array expected, but " + array.type().name() + " received");
+      }
+
+      result[i] = ((LongValue)value).value();
+    }
+
+    return result;
+  }
+}
@@ -20,10 +20,8 @@ import com.intellij.debugger.streams.trace.TraceElement;
 import com.intellij.debugger.streams.trace.TraceInfo;
 import com.intellij.debugger.streams.trace.impl.interpret.ex.UnexpectedArrayLengthException;
 import com.intellij.debugger.streams.trace.impl.interpret.ex.UnexpectedValueException;
-import com.intellij.debugger.streams.trace.impl.interpret.ex.UnexpectedValueTypeException;
 import com.intellij.debugger.streams.wrapper.StreamCall;
 import com.sun.jdi.ArrayReference;
-import com.sun.jdi.IntegerValue;
 import com.sun.jdi.Value;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -81,11 +79,13 @@ public class DistinctCallTraceInterpreter implements CallTraceInterpreter {
   }
 
   @NotNull
-  private static Map<TraceElement, List<TraceElement>> resolveDirectTrace(@NotNull ArrayReference keys,
-                                                                          @NotNull ArrayReference values,
+  private static Map<TraceElement, List<TraceElement>> resolveDirectTrace(@NotNull ArrayReference keysArray,
+                                                                          @NotNull ArrayReference valuesArray,
                                                                           @NotNull TraceInfo order) {
-    final int size = keys.length();
-    if (size != values.length()) {
+    final int[] keys = ArrayReferenceUtil.getIntValues(keysArray);
+    final int[] values = ArrayReferenceUtil.getIntValues(valuesArray);
+    final int size = keys.length;
+    if (size != values.length) {
       throw new UnexpectedArrayLengthException("length of keys array should be same with values array");
     }
 
@@ -94,8 +94,8 @@ public class DistinctCallTraceInterpreter implements CallTraceInterpreter {
     final Map<Integer, TraceElement> before = order.getValuesOrderBefore();
     final Map<Integer, TraceElement> after = order.getValuesOrderAfter();
     for (int i = 0; i < size; i++) {
-      final int fromTime = extractIntValue(keys.getValue(i));
-      final int afterTime = extractIntValue(values.getValue(i));
+      final int fromTime = keys[i];
+      final int afterTime = values[i];
       result.put(before.get(fromTime), Collections.singletonList(after.get(afterTime)));
     }
 
@@ -103,11 +103,13 @@ public class DistinctCallTraceInterpreter implements CallTraceInterpreter {
   }
 
   @NotNull
-  private static Map<TraceElement, List<TraceElement>> resolveReverseTrace(@NotNull ArrayReference keys,
-                                                                           @NotNull ArrayReference values,
+  private static Map<TraceElement, List<TraceElement>> resolveReverseTrace(@NotNull ArrayReference keysArray,
+                                                                           @NotNull ArrayReference valuesArray,
                                                                            @NotNull TraceInfo order) {
-    final int size = keys.length();
-    if (size != values.length()) {
+    final int[] keys = ArrayReferenceUtil.getIntValues(keysArray);
+    final int[] values = ArrayReferenceUtil.getIntValues(valuesArray);
+    final int size = keys.length;
+    if (size != values.length) {
       throw new UnexpectedArrayLengthException("length of keys array should be same with values array");
     }
 
@@ -116,8 +118,8 @@ public class DistinctCallTraceInterpreter implements CallTraceInterpreter {
     final Map<Integer, TraceElement> before = order.getValuesOrderBefore();
     final Map<Integer, TraceElement> after = order.getValuesOrderAfter();
     for (int i = 0; i < size; i++) {
-      final int fromTime = extractIntValue(keys.getValue(i));
-      final int afterTime = extractIntValue(values.getValue(i));
+      final int fromTime = keys[i];
+      final int afterTime = values[i];
       final TraceElement beforeElement = before.get(fromTime);
       final TraceElement afterElement = after.get(afterTime);
       result.computeIfAbsent(afterElement, x -> new ArrayList<>()).add(beforeElement);
@@ -150,12 +152,4 @@ public class DistinctCallTraceInterpreter implements CallTraceInterpreter {
       return Collections.unmodifiableMap(myReverseTrace);
     }
   }
-
-  private static int extractIntValue(@NotNull Value value) {
-    if (value instanceof IntegerValue) {
-      return ((IntegerValue)value).value();
-    }
-
-    throw new UnexpectedValueTypeException("value should be IntegerValue, but actual is " + value.type().name());
-  }
 }
@@ -22,10 +22,8 @@ import com.intellij.debugger.streams.trace.impl.TraceElementImpl;
 import com.intellij.debugger.streams.trace.impl.interpret.ex.UnexpectedValueException;
 import com.intellij.debugger.streams.wrapper.StreamCall;
 import com.sun.jdi.ArrayReference;
-import com.sun.jdi.IntegerValue;
 import com.sun.jdi.Value;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -39,9 +37,9 @@ public class SimplePeekCallTraceInterpreter implements CallTraceInterpreter {
   @Override
   public TraceInfo resolve(@NotNull StreamCall call, @NotNull Value value) {
     if (value instanceof ArrayReference) {
-      final ArrayReference trace = (ArrayReference)value;
-      final Value before = trace.getValue(0);
-      final Value after = trace.getValue(1);
+      final List<Value> trace = ArrayReferenceUtil.getValues((ArrayReference)value);
+      final Value before = trace.size() == 2 ? trace.get(0) : null;
+      final Value after = trace.size() == 2 ? trace.get(1) : null;
       if (before instanceof ArrayReference && after instanceof ArrayReference) {
         final Map<Integer, TraceElement> beforeTrace = resolveTrace((ArrayReference)before);
         final Map<Integer, TraceElement> afterTrace = resolveTrace((ArrayReference)after);
@@ -54,8 +52,9 @@ public class SimplePeekCallTraceInterpreter implements CallTraceInterpreter {
 
   @NotNull
   private Map<Integer, TraceElement> resolveTrace(@NotNull ArrayReference mapArray) {
-    final Value keys = mapArray.getValue(0);
-    final Value values = mapArray.getValue(1);
+    final List<Value> keysAndValues = ArrayReferenceUtil.getValues(mapArray);
+    final Value keys = keysAndValues.size() == 2 ? keysAndValues.get(0) : null;
+    final Value values = keysAndValues.size() == 2 ? keysAndValues.get(1) : null;
     if (keys instanceof ArrayReference && values instanceof ArrayReference) {
       return resolveTrace((ArrayReference)keys, (ArrayReference)values);
     }
@@ -65,13 +64,13 @@ public class SimplePeekCallTraceInterpreter implements CallTraceInterpreter {
 
   @NotNull
   private Map<Integer, TraceElement> resolveTrace(@NotNull ArrayReference keysArray, @NotNull ArrayReference valuesArray) {
-    final LinkedHashMap<Integer, TraceElement> result = new LinkedHashMap<>();
-    final List<Value> keyMirrors = keysArray.getValues();
-    final List<Value> valueMirrors = valuesArray.getValues();
-    if (keyMirrors.size() == valueMirrors.size()) {
-      for (int i = 0, size = keyMirrors.size(); i < size; i++) {
-        final TraceElement element = resolveTraceElement(keyMirrors.get(i), valueMirrors.get(i));
-        result.put(element.getTime(), element);
+    final int[] times = ArrayReferenceUtil.getIntValues(keysArray);
+    final List<Value> valueMirrors = ArrayReferenceUtil.getValues(valuesArray);
+    if (times.length == valueMirrors.size()) {
+      final LinkedHashMap<Integer, TraceElement> result = new LinkedHashMap<>(capacity(times.length));
+      for (int i = 0; i < times.length; i++) {
+        final int time = times[i];
+        result.put(time, new TraceElementImpl(time, valueMirrors.get(i)));
       }
 
       return result;
@@ -80,12 +79,7 @@ public class SimplePeekCallTraceInterpreter implements CallTraceInterpreter {
     throw new UnexpectedValueException("keys and values arrays should be with the same sizes");
   }
 
-  @NotNull
-  private TraceElement resolveTraceElement(@NotNull Value key, @Nullable Value value) {
-    if (key instanceof IntegerValue) {
-      return new TraceElementImpl(((IntegerValue)key).value(), value);
-    }
-
-    throw new UnexpectedValueException("key must be an integer value");
+  private static int capacity(int expectedSize) {
+    return expectedSize < 3 ? expectedSize + 1 : (int)(expectedSize / 0.75f + 1.0f);
   }
 }
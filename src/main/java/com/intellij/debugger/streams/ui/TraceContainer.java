@@ -32,4 +32,9 @@ public interface TraceContainer extends Disposable {
   void addSelectionListener(@NotNull ValuesSelectionListener listener);
 
   boolean highlightedExists();
+
+  /**
+   * Repaints the container after its highlighting or selection has been changed
+   */
+  void updatePresentation();
 }
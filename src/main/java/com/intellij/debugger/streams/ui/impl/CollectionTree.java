@@ -40,6 +40,7 @@ import com.intellij.xdebugger.impl.actions.XDebuggerActions;
 import com.intellij.xdebugger.impl.ui.tree.XDebuggerTree;
 import com.intellij.xdebugger.impl.ui.tree.XDebuggerTreeListener;
 import com.intellij.xdebugger.impl.ui.tree.nodes.RestorableStateNode;
+import com.intellij.xdebugger.impl.ui.tree.nodes.XDebuggerTreeNode;
 import com.intellij.xdebugger.impl.ui.tree.nodes.XValueContainerNode;
 import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
 import com.sun.jdi.Value;
@@ -49,8 +50,10 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.java.debugger.JavaDebuggerEditorsProvider;
 
+import javax.swing.ToolTipManager;
 import javax.swing.tree.TreePath;
 import java.awt.*;
+import java.awt.event.MouseEvent;
 import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -63,68 +66,59 @@ public class CollectionTree extends XDebuggerTree implements TraceContainer {
   private static final Map<Integer, Color> COLORS_CACHE = new HashMap<>();
   private static final Object NULL_MARKER = new Object();
 
+  /**
+   * Values are added to the tree by pages, the next page is loaded when the end of the loaded part is about to become visible
+   */
+  private static final int PAGE_SIZE = 500;
+  private static final int PREFETCH_ROWS = 50;
+
   private final NodeManagerImpl myNodeManager;
   private final Project myProject;
   private final Map<TraceElement, TreePath> myValue2Path = new HashMap<>();
   private final Map<TreePath, TraceElement> myPath2Value = new HashMap<>();
   private final int myItemsCount;
+  private final boolean myIsValuesAligned;
+  private final XValueNodeImpl myRoot;
+  private final PagedTraceElements myPages;
   private Set<TreePath> myHighlighted = Collections.emptySet();
   private final EventDispatcher<ValuesSelectionListener> mySelectionDispatcher = EventDispatcher.create(ValuesSelectionListener.class);
   private final EventDispatcher<PaintingListener> myPaintingDispatcher = EventDispatcher.create(PaintingListener.class);
 
   private boolean myIgnoreInternalSelectionEvents = false;
   private boolean myIgnoreExternalSelectionEvents = false;
+  private boolean myIsPageLoading = false;
 
   CollectionTree(@NotNull List<Value> values,
                  @NotNull List<TraceElement> traceElements,
                  @NotNull EvaluationContextImpl evaluationContext) {
+    this(values, traceElements, evaluationContext, true);
+  }
+
+  /**
+   * @param isValuesAligned true if the i-th value is the value of the i-th trace element. It allows to map nodes to trace elements
+   *                        by index, otherwise nodes are matched with trace elements by values when they are loaded
+   */
+  CollectionTree(@NotNull List<Value> values,
+                 @NotNull List<TraceElement> traceElements,
+                 @NotNull EvaluationContextImpl evaluationContext,
+                 boolean isValuesAligned) {
     super(evaluationContext.getProject(), new JavaDebuggerEditorsProvider(), null, XDebuggerActions.INSPECT_TREE_POPUP_GROUP, null);
 
     myProject = evaluationContext.getProject();
     myNodeManager = new MyNodeManager(myProject);
     myItemsCount = values.size();
-    final XValueNodeImpl root = new XValueNodeImpl(this, null, "root", new MyRootValue(values, evaluationContext));
-    setRoot(root, false);
-    root.setLeaf(false);
-
-    final Map<Object, List<TraceElement>> key2TraceElements =
-      StreamEx.of(traceElements).groupingBy(CollectionTree::extractKey);
-
-    final Map<Object, Integer> key2Index = new HashMap<>(key2TraceElements.size() + 1);
-    addTreeListener(new XDebuggerTreeListener() {
-      @Override
-      public void nodeLoaded(@NotNull RestorableStateNode node, String name) {
-        final XDebuggerTreeListener listener = this;
-        if (node instanceof XValueContainerNode) {
-          final XValueContainer container = ((XValueContainerNode)node).getValueContainer();
-          if (container instanceof JavaValue) {
-            final ValueDescriptorImpl descriptor = ((JavaValue)container).getDescriptor();
-            evaluationContext.getDebugProcess().getManagerThread().schedule(new DebuggerCommandImpl() {
-              @Override
-              protected void action() {
-                final Value value = descriptor.getValue();
-                ApplicationManager.getApplication().invokeLater(() -> {
-                  final Object key = value == null ? NULL_MARKER : value;
-                  List<TraceElement> elements = key2TraceElements.get(key);
-                  final int nextIndex = key2Index.getOrDefault(key, -1) + 1;
-                  if (elements != null && nextIndex < elements.size()) {
-                    final TraceElement element = elements.get(nextIndex);
-                    myValue2Path.put(element, node.getPath());
-                    myPath2Value.put(node.getPath(), element);
-                    key2Index.put(key, nextIndex);
-                  }
-
-                  if (myPath2Value.size() == traceElements.size()) {
-                    CollectionTree.this.removeTreeListener(listener);
-                    ApplicationManager.getApplication().invokeLater(CollectionTree.this::repaint);
-                  }
-                });
-              }
-            });
-          }
-        }
-      }
-    });
+    myIsValuesAligned = isValuesAligned;
+    myPages = new PagedTraceElements(isValuesAligned ? traceElements : Collections.emptyList());
+    myRoot = new XValueNodeImpl(this, null, "root", new MyRootValue(values, evaluationContext));
+    setRoot(myRoot, false);
+    myRoot.setLeaf(false);
+
+    if (isValuesAligned) {
+      mapChildrenByIndex(traceElements);
+    }
+    else {
+      mapNodesByValue(traceElements, evaluationContext);
+    }
 
     addTreeSelectionListener(e -> {
       if (myIgnoreInternalSelectionEvents) {
@@ -145,7 +139,49 @@ public class CollectionTree extends XDebuggerTree implements TraceContainer {
     });
 
     setSelectionRow(0);
-    expandNodesOnLoad(node -> node == root);
+    expandNodesOnLoad(node -> node == myRoot);
+    ToolTipManager.sharedInstance().registerComponent(this);
+  }
+
+  /**
+   * Shows the worker thread which passed the element if the chain was traced in parallel
+   */
+  @Nullable
+  @Override
+  public String getToolTipText(@NotNull MouseEvent event) {
+    final TreePath path = getPathForLocation(event.getX(), event.getY());
+    final TraceElement element = path == null ? null : myPath2Value.get(getTopPath(path));
+    final String threadName = element == null ? null : element.getThreadName();
+    return threadName == null ? super.getToolTipText(event) : "Passed by " + threadName;
+  }
+
+  private void mapChildrenByIndex(@NotNull List<TraceElement> traceElements) {
+    addTreeListener(new XDebuggerTreeListener() {
+      @Override
+      public void childrenLoaded(@NotNull XDebuggerTreeNode node, @NotNull List<XValueContainerNode<?>> children, boolean last) {
+        if (node != myRoot) return;
+        for (final XValueContainerNode<?> child : children) {
+          final int index = myPath2Value.size();
+          if (index < traceElements.size()) {
+            final TraceElement element = traceElements.get(index);
+            final TreePath path = child.getPath();
+            myValue2Path.put(element, path);
+            myPath2Value.put(path, element);
+          }
+        }
+
+        myIsPageLoading = myPages.pageLoaded(myPath2Value.size()) && myPath2Value.size() < myItemsCount;
+        if (myIsPageLoading) {
+          ApplicationManager.getApplication().invokeLater(myRoot::startComputingChildren);
+        }
+
+        updatePresentation();
+      }
+    });
+  }
+
+  private void mapNodesByValue(@NotNull List<TraceElement> traceElements, @NotNull EvaluationContextImpl evaluationContext) {
+    addTreeListener(new MyValueMatcher(traceElements, evaluationContext));
   }
 
   CollectionTree(@NotNull List<TraceElement> traceElements,
@@ -208,26 +244,36 @@ public class CollectionTree extends XDebuggerTree implements TraceContainer {
 
   @Override
   public void highlight(@NotNull List<TraceElement> elements) {
-    clearSelection();
-
-    highlightValues(elements);
-    tryScrollTo(elements);
+    requestPages(elements, () -> {
+      clearSelection();
 
-    updatePresentation();
+      highlightValues(elements);
+      tryScrollTo(elements);
+    });
   }
 
   @Override
   public void select(@NotNull List<TraceElement> elements) {
-    final TreePath[] paths = elements.stream().map(myValue2Path::get).toArray(TreePath[]::new);
+    requestPages(elements, () -> {
+      final TreePath[] paths = elements.stream().map(myValue2Path::get).filter(Objects::nonNull).toArray(TreePath[]::new);
 
-    select(paths);
-    highlightValues(elements);
+      select(paths);
+      highlightValues(elements);
 
-    if (paths.length > 0) {
-      scrollPathToVisible(paths[0]);
-    }
+      if (paths.length > 0) {
+        scrollPathToVisible(paths[0]);
+      }
+    });
+  }
 
-    updatePresentation();
+  /**
+   * Applies the request to the loaded values and repeats it when pages with the rest of the elements are loaded
+   */
+  private void requestPages(@NotNull List<TraceElement> elements, @NotNull Runnable request) {
+    if (myPages.request(elements, request) && !myIsPageLoading && !myPath2Value.isEmpty()) {
+      myIsPageLoading = true;
+      ApplicationManager.getApplication().invokeLater(myRoot::startComputingChildren);
+    }
   }
 
   @Override
@@ -253,6 +299,20 @@ public class CollectionTree extends XDebuggerTree implements TraceContainer {
   protected void paintComponent(Graphics g) {
     super.paintComponent(g);
     myPaintingDispatcher.getMulticaster().componentPainted();
+    prefetchNextPageIfNeeded();
+  }
+
+  private void prefetchNextPageIfNeeded() {
+    if (!myIsValuesAligned || myIsPageLoading || myPath2Value.isEmpty() || myPath2Value.size() >= myItemsCount) {
+      return;
+    }
+
+    final Rectangle visibleRect = getVisibleRect();
+    final int lastVisibleRow = getClosestRowForLocation(visibleRect.x, visibleRect.y + visibleRect.height);
+    if (lastVisibleRow + PREFETCH_ROWS >= getRowCount()) {
+      myIsPageLoading = true;
+      ApplicationManager.getApplication().invokeLater(myRoot::startComputingChildren);
+    }
   }
 
   private void select(@NotNull TreePath[] paths) {
@@ -338,10 +398,11 @@ public class CollectionTree extends XDebuggerTree implements TraceContainer {
   }
 
   private void highlightValues(@NotNull List<TraceElement> elements) {
-    myHighlighted = elements.stream().map(myValue2Path::get).collect(Collectors.toSet());
+    myHighlighted = elements.stream().map(myValue2Path::get).filter(Objects::nonNull).collect(Collectors.toSet());
   }
 
-  private void updatePresentation() {
+  @Override
+  public void updatePresentation() {
     revalidate();
     repaint();
   }
@@ -358,6 +419,7 @@ public class CollectionTree extends XDebuggerTree implements TraceContainer {
   private class MyRootValue extends XValue {
     private final List<Value> myValues;
     private final EvaluationContextImpl myEvaluationContext;
+    private int myLoadedCount = 0;
 
     MyRootValue(@NotNull List<Value> values, @NotNull EvaluationContextImpl evaluationContext) {
       myValues = values;
@@ -366,13 +428,20 @@ public class CollectionTree extends XDebuggerTree implements TraceContainer {
 
     @Override
     public void computeChildren(@NotNull XCompositeNode node) {
-      final XValueChildrenList children = new XValueChildrenList();
-      for (final Value value : myValues) {
+      final int from = myLoadedCount;
+      final int to = Math.min(myValues.size(), from + PAGE_SIZE);
+      final XValueChildrenList children = new XValueChildrenList(to - from);
+      for (final Value value : myValues.subList(from, to)) {
         final PrimitiveValueDescriptor valueDescriptor = new PrimitiveValueDescriptor(myProject, value);
         children.add(new InstanceJavaValue(valueDescriptor, myEvaluationContext, myNodeManager));
       }
 
-      node.addChildren(children, true);
+      myLoadedCount = to;
+      final int remaining = myValues.size() - to;
+      node.addChildren(children, remaining == 0);
+      if (remaining > 0) {
+        node.tooManyChildren(remaining);
+      }
     }
 
     @Override
@@ -381,6 +450,83 @@ public class CollectionTree extends XDebuggerTree implements TraceContainer {
     }
   }
 
+  /**
+   * Matches loaded nodes with trace elements by their values. Values of nodes loaded in a row are obtained
+   * by a single debugger command and matched by a single pass in EDT
+   */
+  private class MyValueMatcher implements XDebuggerTreeListener {
+    private final int myElementsCount;
+    private final Map<Object, List<TraceElement>> myKey2TraceElements;
+    private final Map<Object, Integer> myKey2Index;
+    private final EvaluationContextImpl myEvaluationContext;
+    private final List<RestorableStateNode> myPendingNodes = new ArrayList<>();
+    private final List<ValueDescriptorImpl> myPendingDescriptors = new ArrayList<>();
+
+    MyValueMatcher(@NotNull List<TraceElement> traceElements, @NotNull EvaluationContextImpl evaluationContext) {
+      myElementsCount = traceElements.size();
+      myKey2TraceElements = StreamEx.of(traceElements).groupingBy(CollectionTree::extractKey);
+      myKey2Index = new HashMap<>(myKey2TraceElements.size() + 1);
+      myEvaluationContext = evaluationContext;
+    }
+
+    @Override
+    public void nodeLoaded(@NotNull RestorableStateNode node, String name) {
+      if (node instanceof XValueContainerNode) {
+        final XValueContainer container = ((XValueContainerNode)node).getValueContainer();
+        if (container instanceof JavaValue) {
+          synchronized (myPendingNodes) {
+            myPendingNodes.add(node);
+            myPendingDescriptors.add(((JavaValue)container).getDescriptor());
+            if (myPendingNodes.size() == 1) {
+              scheduleBatch();
+            }
+          }
+        }
+      }
+    }
+
+    private void scheduleBatch() {
+      myEvaluationContext.getDebugProcess().getManagerThread().schedule(new DebuggerCommandImpl() {
+        @Override
+        protected void action() {
+          final List<RestorableStateNode> nodes;
+          final List<ValueDescriptorImpl> descriptors;
+          synchronized (myPendingNodes) {
+            nodes = new ArrayList<>(myPendingNodes);
+            descriptors = new ArrayList<>(myPendingDescriptors);
+            myPendingNodes.clear();
+            myPendingDescriptors.clear();
+          }
+
+          final List<Value> values = StreamEx.of(descriptors).map(ValueDescriptorImpl::getValue).toList();
+          ApplicationManager.getApplication().invokeLater(() -> match(nodes, values));
+        }
+      });
+    }
+
+    private void match(@NotNull List<RestorableStateNode> nodes, @NotNull List<Value> values) {
+      for (int i = 0; i < nodes.size(); i++) {
+        final Value value = values.get(i);
+        final Object key = value == null ? NULL_MARKER : value;
+        final List<TraceElement> elements = myKey2TraceElements.get(key);
+        final int nextIndex = myKey2Index.getOrDefault(key, -1) + 1;
+        if (elements != null && nextIndex < elements.size()) {
+          final TreePath path = nodes.get(i).getPath();
+          final TraceElement element = elements.get(nextIndex);
+          myValue2Path.put(element, path);
+          myPath2Value.put(path, element);
+          myKey2Index.put(key, nextIndex);
+        }
+      }
+
+      if (myPath2Value.size() == myElementsCount) {
+        removeTreeListener(this);
+      }
+
+      repaint();
+    }
+  }
+
   private final static class MyNodeManager extends NodeManagerImpl {
     MyNodeManager(Project project) {
       super(project, null);
@@ -85,6 +85,11 @@ public class CollectionView extends JPanel implements TraceContainer {
     return myInstancesTree.highlightedExists();
   }
 
+  @Override
+  public void updatePresentation() {
+    myInstancesTree.updatePresentation();
+  }
+
   @NotNull
   protected CollectionTree getInstancesTree() {
     return myInstancesTree;
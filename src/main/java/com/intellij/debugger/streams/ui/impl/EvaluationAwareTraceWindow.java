@@ -15,6 +15,7 @@
  */
 package com.intellij.debugger.streams.ui.impl;
 
+import com.intellij.debugger.engine.DebugProcessImpl;
 import com.intellij.debugger.engine.evaluation.EvaluationContextImpl;
 import com.intellij.debugger.streams.resolve.ResolvedStreamCall;
 import com.intellij.debugger.streams.resolve.ResolvedStreamChain;
@@ -43,9 +44,11 @@ import org.jetbrains.annotations.Nullable;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.HierarchyEvent;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -62,8 +65,12 @@ public class EvaluationAwareTraceWindow extends DialogWrapper {
   private static final String TABBED_MODE_NAME = "Split Mode";
   private final MyCenterPane myCenterPane;
   private final List<MyPlaceholder> myTabContents;
+  private final List<String> myTabTitles = new ArrayList<>();
   private final MyPlaceholder myFlatContent;
   private final JBTabsPaneImpl myTabsPane;
+  private final List<TraceControllerImpl> myControllers = new ArrayList<>();
+  private final MyCancelTracingAction myCancelTracingAction = new MyCancelTracingAction();
+  private Runnable myCancelTracing;
 
   private MyMode myMode;
 
@@ -84,9 +91,10 @@ public class EvaluationAwareTraceWindow extends DialogWrapper {
     myTabContents = new ArrayList<>();
     final QualifierExpression qualifierExpression = chain.getQualifierExpression();
     final MyPlaceholder firstTab = new MyPlaceholder();
-    myTabsPane.insertTab(TraceUtil.formatQualifierExpression(qualifierExpression.getText(), 30),
-                         StreamDebuggerIcons.STREAM_CALL_TAB_ICON, firstTab, qualifierExpression.getText(), 0);
+    final String firstTabTitle = TraceUtil.formatQualifierExpression(qualifierExpression.getText(), 30);
+    myTabsPane.insertTab(firstTabTitle, StreamDebuggerIcons.STREAM_CALL_TAB_ICON, firstTab, qualifierExpression.getText(), 0);
     myTabContents.add(firstTab);
+    myTabTitles.add(firstTabTitle);
 
     for (int i = 0, chainLength = chain.length(); i < chainLength; i++) {
       final StreamCall call = chain.getCall(i);
@@ -95,6 +103,7 @@ public class EvaluationAwareTraceWindow extends DialogWrapper {
       myTabsPane.insertTab(callName, StreamDebuggerIcons.STREAM_CALL_TAB_ICON, tab,
                            callName + TraceUtil.formatWithArguments(call), i + 1);
       myTabContents.add(tab);
+      myTabTitles.add(callName);
     }
 
     myFlatContent = new MyPlaceholder();
@@ -117,32 +126,79 @@ public class EvaluationAwareTraceWindow extends DialogWrapper {
     return "#com.intellij.debugger.streams.ui.EvaluationAwareTraceWindow";
   }
 
+  /**
+   * Shows the next state of the chain while the rest of the trace is still being resolved
+   */
+  public void addState(@NotNull IntermediateState state, @NotNull EvaluationContextImpl context) {
+    final int index = myControllers.size();
+    assert index < myTabContents.size();
+
+    final TraceControllerImpl controller = addController(state);
+    if (index == 0) {
+      myTabContents.get(0).setContentWhenShown(() -> {
+        final CollectionTree tree = new CollectionTree(controller.getTrace(), context);
+        final CollectionView sourceView = new CollectionView(tree);
+        controller.register(sourceView);
+        return sourceView;
+      });
+    }
+    else {
+      final TraceControllerImpl previous = myControllers.get(index - 1);
+      myTabContents.get(index).setContentWhenShown(() -> new StreamTracesMappingView(context, previous, controller));
+    }
+  }
+
+  /**
+   * Keeps the traced values from garbage collection until the window is closed. Can be called from any thread
+   */
+  public void keepPinned(@NotNull PinnedTraceValues values, @NotNull EvaluationContextImpl context) {
+    final DebugProcessImpl process = context.getDebugProcess();
+    ApplicationManager.getApplication().invokeLater(() -> {
+      if (isDisposed()) {
+        values.releaseLater(process);
+      }
+      else {
+        Disposer.register(myDisposable, () -> values.releaseLater(process));
+      }
+    });
+  }
+
+  /**
+   * Sets the action which stops evaluation of the trace, it is available until the trace or a fail message is set
+   */
+  public void setCancelTracingAction(@NotNull Runnable cancelTracing) {
+    myCancelTracing = cancelTracing;
+  }
+
   public void setTrace(@NotNull ResolvedTracingResult resolvedTrace, @NotNull EvaluationContextImpl context) {
+    myCancelTracingAction.setEnabled(false);
     final ResolvedStreamChain chain = resolvedTrace.getResolvedChain();
 
     assert chain.length() == myTabContents.size();
-    final List<TraceControllerImpl> controllers = createControllers(resolvedTrace);
-
-    if (controllers.isEmpty()) return;
-    final List<TraceElement> trace = controllers.get(0).getTrace();
-    final CollectionTree tree = new CollectionTree(trace, context);
-    final CollectionView sourceView = new CollectionView(tree);
-    controllers.get(0).register(sourceView);
-    myTabContents.get(0).setContent(sourceView, BorderLayout.CENTER);
-
-    for (int i = 1; i < myTabContents.size(); i++) {
-      if (i == myTabContents.size() - 1 &&
-          (resolvedTrace.exceptionThrown() ||
-           resolvedTrace.getSourceChain().getTerminationCall().getResultType().equals(JavaTypes.INSTANCE.getVOID()))) {
-        break;
+    final List<IntermediateState> states = getStatesBeforeTermination(chain);
+    for (int i = myControllers.size(); i < states.size(); i++) {
+      addState(states.get(i), context);
+    }
+
+    final ResolvedStreamCall.Terminator terminator = chain.getTerminator();
+    final IntermediateState afterTerminationState = terminator.getStateAfter();
+    if (afterTerminationState != null && !terminator.getCall().getResultType().equals(JavaTypes.INSTANCE.getVOID())) {
+      if (resolvedTrace.exceptionThrown() || resolvedTrace.getAbortReason() != null) {
+        addController(afterTerminationState);
+      }
+      else {
+        addState(afterTerminationState, context);
       }
+    }
 
-      final MyPlaceholder tab = myTabContents.get(i);
-      final TraceController previous = controllers.get(i - 1);
-      final TraceController current = controllers.get(i);
+    // tabs before the result show elements after the source and after every intermediate call
+    final List<ElementsCount> elementsCount = resolvedTrace.getElementsCount();
+    for (int i = 0; i < elementsCount.size() && i < myTabTitles.size(); i++) {
+      myTabsPane.setTitleAt(i, myTabTitles.get(i) + " " + formatElementsCount(elementsCount.get(i)));
+    }
 
-      final StreamTracesMappingView view = new StreamTracesMappingView(context, previous, current);
-      tab.setContent(view, BorderLayout.CENTER);
+    if (resolvedTrace.isTruncated()) {
+      setTitle(DIALOG_TITLE + " - Trace is truncated. Only first elements of the source and of sorting calls are traced");
     }
 
     final TraceElement result = resolvedTrace.getResult();
@@ -156,17 +212,36 @@ public class EvaluationAwareTraceWindow extends DialogWrapper {
       myTabsPane.insertTab("Exception", AllIcons.Nodes.ErrorIntroduction, exceptionView, "", 0);
       myTabsPane.setSelectedIndex(0);
     }
+    else if (resolvedTrace.getAbortReason() != null) {
+      final String reason = resolvedTrace.getAbortReason();
+      resultTab.setContent(new JBLabel("There is no result: tracing was aborted (" + reason + ")", SwingConstants.CENTER),
+                           BorderLayout.CENTER);
+      setTitle(DIALOG_TITLE + " - Tracing was aborted (" + reason + "). Only elements passed before are shown");
+    }
     else if (resolvedTrace.getSourceChain().getTerminationCall().getResultType().equals(JavaTypes.INSTANCE.getVOID())) {
       resultTab.setContent(new JBLabel("There is no result of such stream chain", SwingConstants.CENTER), BorderLayout.CENTER);
     }
 
-    final FlatView flatView = new FlatView(controllers, context);
-    myFlatContent.setContent(flatView, BorderLayout.CENTER);
+    final List<CallProfile> profile = resolvedTrace.getProfile();
+    if (!profile.isEmpty()) {
+      myTabsPane.insertTab("Profile", AllIcons.General.Information, new ProfileView(profile),
+                           "Time and numbers of elements of every call", myTabsPane.getTabCount());
+    }
+
+    final List<WorkerThreadProfile> threads = resolvedTrace.getWorkerThreads();
+    if (!threads.isEmpty()) {
+      myTabsPane.insertTab("Threads", AllIcons.Debugger.Threads, new ThreadsView(resolvedTrace.getSourceChain(), threads),
+                           "Numbers of elements passed by every worker thread", myTabsPane.getTabCount());
+    }
+
+    final List<TraceControllerImpl> controllers = new ArrayList<>(myControllers);
+    myFlatContent.setContentWhenShown(() -> new FlatView(controllers, context));
     myCenterPane.revalidate();
     myCenterPane.repaint();
   }
 
   public void setFailMessage(@NotNull String reason) {
+    myCancelTracingAction.setEnabled(false);
     Stream.concat(Stream.of(myFlatContent), myTabContents.stream())
       .forEach(x -> x.setContent(new JBLabel(reason, SwingConstants.CENTER), BorderLayout.CENTER));
   }
@@ -180,7 +255,7 @@ public class EvaluationAwareTraceWindow extends DialogWrapper {
   @NotNull
   @Override
   protected Action[] createLeftSideActions() {
-    return new Action[]{new MyToggleViewAction()};
+    return new Action[]{new MyToggleViewAction(), myCancelTracingAction};
   }
 
   @Nullable
@@ -190,42 +265,31 @@ public class EvaluationAwareTraceWindow extends DialogWrapper {
   }
 
   @NotNull
-  private List<TraceControllerImpl> createControllers(@NotNull ResolvedTracingResult resolvedResult) {
-    List<TraceControllerImpl> controllers = new ArrayList<>();
-    final ResolvedStreamChain chain = resolvedResult.getResolvedChain();
-
-    final List<ResolvedStreamCall.Intermediate> intermediateCalls = chain.getIntermediateCalls();
-    final NextAwareState firstState = intermediateCalls.isEmpty()
-                                      ? chain.getTerminator().getStateBefore()
-                                      : intermediateCalls.get(0).getStateBefore();
-    final TraceControllerImpl firstController = new TraceControllerImpl(firstState);
-
-    controllers.add(firstController);
-    TraceControllerImpl prevController = firstController;
-    for (final ResolvedStreamCall.Intermediate intermediate : intermediateCalls) {
-      final PrevAwareState after = intermediate.getStateAfter();
-      final TraceControllerImpl controller = new TraceControllerImpl(after);
-
-      prevController.setNextController(controller);
-      controller.setPreviousController(prevController);
-      prevController = controller;
-
-      controllers.add(controller);
+  private TraceControllerImpl addController(@NotNull IntermediateState state) {
+    final TraceControllerImpl controller = new TraceControllerImpl(state);
+    Disposer.register(myDisposable, controller);
+    if (!myControllers.isEmpty()) {
+      final TraceControllerImpl previous = myControllers.get(myControllers.size() - 1);
+      previous.setNextController(controller);
+      controller.setPreviousController(previous);
     }
 
-    final ResolvedStreamCall.Terminator terminator = chain.getTerminator();
-    final IntermediateState afterTerminationState = terminator.getStateAfter();
-    if (afterTerminationState != null && !terminator.getCall().getResultType().equals(JavaTypes.INSTANCE.getVOID())) {
-
-      final TraceControllerImpl terminationController = new TraceControllerImpl(afterTerminationState);
+    myControllers.add(controller);
+    return controller;
+  }
 
-      terminationController.setPreviousController(prevController);
-      prevController.setNextController(terminationController);
-      controllers.add(terminationController);
-    }
+  @NotNull
+  private static String formatElementsCount(@NotNull ElementsCount count) {
+    return count.isTruncated() ? "(" + count.getRecorded() + " of " + count.getPassed() + ")" : "(" + count.getPassed() + ")";
+  }
 
-    controllers.forEach(x -> Disposer.register(myDisposable, x));
-    return controllers;
+  @NotNull
+  private static List<IntermediateState> getStatesBeforeTermination(@NotNull ResolvedStreamChain chain) {
+    final List<IntermediateState> states = new ArrayList<>();
+    final List<ResolvedStreamCall.Intermediate> intermediateCalls = chain.getIntermediateCalls();
+    states.add(intermediateCalls.isEmpty() ? chain.getTerminator().getStateBefore() : intermediateCalls.get(0).getStateBefore());
+    intermediateCalls.forEach(x -> states.add(x.getStateAfter()));
+    return states;
   }
 
   private static void updateWindowMode(@NotNull MyCenterPane pane, @NotNull MyMode mode) {
@@ -260,13 +324,53 @@ public class EvaluationAwareTraceWindow extends DialogWrapper {
     }
   }
 
+  private class MyCancelTracingAction extends DialogWrapperAction {
+    MyCancelTracingAction() {
+      super("Cancel Tracing");
+    }
+
+    @Override
+    protected void doAction(ActionEvent e) {
+      setEnabled(false);
+      if (myCancelTracing != null) {
+        myCancelTracing.run();
+      }
+    }
+  }
+
   private static class MyPlaceholder extends JPanel {
+    private Supplier<JComponent> myContentFactory;
+
     MyPlaceholder() {
       super(new BorderLayout());
       add(new JBLabel("Evaluation in process", SwingConstants.CENTER), BorderLayout.CENTER);
+      addHierarchyListener(e -> {
+        if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()) {
+          createContent();
+        }
+      });
+    }
+
+    /**
+     * Postpones building of the view until the placeholder is shown, since trees of large calls are expensive to build
+     */
+    void setContentWhenShown(@NotNull Supplier<JComponent> contentFactory) {
+      myContentFactory = contentFactory;
+      if (isShowing()) {
+        createContent();
+      }
+    }
+
+    private void createContent() {
+      final Supplier<JComponent> factory = myContentFactory;
+      if (factory != null) {
+        myContentFactory = null;
+        setContent(factory.get(), BorderLayout.CENTER);
+      }
     }
 
     void setContent(@NotNull JComponent view, String placement) {
+      myContentFactory = null;
       Arrays.stream(getComponents()).forEach(this::remove);
       add(view, placement);
       revalidate();
@@ -24,6 +24,7 @@ import com.intellij.util.ui.GraphicsUtil
 import com.intellij.util.ui.JBUI
 import com.intellij.util.ui.UIUtil
 import java.awt.*
+import java.awt.geom.Path2D
 import javax.swing.JPanel
 import javax.swing.SwingConstants
 
@@ -56,6 +57,9 @@ class MappingPane(name: String,
   }
 
   private inner class MyDrawPane : JPanel() {
+    // the mapping does not change, so the linked pairs are collected once and every paint just walks over them
+    private val myLinks: List<Link> by lazy { collectLinks() }
+
     override fun paintComponent(g: Graphics?) {
       if (g == null) {
         return
@@ -67,13 +71,7 @@ class MappingPane(name: String,
         val config = GraphicsUtil.setupAAPainting(g)
 
         val colors = if (UIUtil.isUnderDarcula()) DARCULA_LINE_COLOR else INTELLIJ_LINE_COLOR
-        if (isSelectedExist()) {
-          drawLines(g, colors.inactive, false)
-          drawLines(g, colors.selected, true)
-        }
-        else {
-          drawLines(g, colors.regular, false)
-        }
+        drawLines(g, colors)
 
         config.restore()
       }
@@ -81,22 +79,47 @@ class MappingPane(name: String,
 
     private fun isSelectedExist(): Boolean = controller.isSelectionExists
 
+    /**
+     * Lines are collected into a single path per color and only the ones which cross the clip are added
+     */
+    private fun drawLines(g: Graphics2D, colors: LineColor) {
+      val x1 = x.toFloat()
+      val x2 = (x + width).toFloat()
+      val clip = g.clipBounds
+      val top = clip?.y ?: Int.MIN_VALUE
+      val bottom = if (clip == null) Int.MAX_VALUE else clip.y + clip.height
+
+      val regularLines = Path2D.Float()
+      val highlightedLines = Path2D.Float()
+      val isSelectedExist = isSelectedExist()
+      for ((left, right) in myLinks) {
+        if (!needToDraw(left, right)) continue
+
+        val y1 = left.position
+        val y2 = right.position
+        if (Math.max(y1, y2) < top || Math.min(y1, y2) > bottom) continue
+
+        val path = if (isSelectedExist && needToHighlight(left, right)) highlightedLines else regularLines
+        path.moveTo(x1, y1.toFloat())
+        path.lineTo(x2, y2.toFloat())
+      }
 
-    private fun drawLines(g: Graphics2D, color: Color, highlighted: Boolean) {
-      val x1 = x
-      val x2 = x + width
-      g.color = color
+      g.color = if (isSelectedExist) colors.inactive else colors.regular
+      g.draw(regularLines)
+      if (isSelectedExist) {
+        g.color = colors.selected
+        g.draw(highlightedLines)
+      }
+    }
+
+    private fun collectLinks(): List<Link> {
+      val links = mutableListOf<Link>()
       for (value in beforeValues) {
         val linkedValues = mapping.getLinkedValues(value) ?: continue
-        for (nextValue in linkedValues) {
-          if (needToDraw(value, nextValue) && highlighted == needToHighlight(value, nextValue)) {
-            val y1 = value.position
-            val y2 = nextValue.position
-
-            g.drawLine(x1, y1, x2, y2)
-          }
-        }
+        linkedValues.mapTo(links) { Link(value, it) }
       }
+
+      return links
     }
 
     private fun needToDraw(left: ValueWithPosition, right: ValueWithPosition): Boolean = left.isVisible || right.isVisible
@@ -104,5 +127,7 @@ class MappingPane(name: String,
     private fun needToHighlight(left: ValueWithPosition, right: ValueWithPosition): Boolean = left.isHighlighted && right.isHighlighted
   }
 
+  private data class Link(val left: ValueWithPosition, val right: ValueWithPosition)
+
   private data class LineColor(val regular: JBColor, val selected: JBColor, val inactive: JBColor)
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.ui.impl;
+
+import com.intellij.debugger.streams.trace.TraceElement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Knows the index of every trace element in a paged collection tree. A request for elements on pages which are not loaded yet
+ * is postponed until the pages are loaded, only the last such request is kept
+ *
+ * @author Vitaliy.Bibaev
+ */
+class PagedTraceElements {
+  private final Map<TraceElement, Integer> myElement2Index;
+  private int myLoadedCount = 0;
+  private int myRequiredCount = 0;
+  private Runnable myPendingRequest = null;
+
+  PagedTraceElements(@NotNull List<TraceElement> traceElements) {
+    myElement2Index = new HashMap<>(traceElements.size());
+    for (int i = 0; i < traceElements.size(); i++) {
+      myElement2Index.putIfAbsent(traceElements.get(i), i);
+    }
+  }
+
+  /**
+   * Runs the request immediately. If some of the elements are not loaded yet, the request is also run again when they are
+   *
+   * @return true if more pages should be loaded for the request
+   */
+  boolean request(@NotNull List<TraceElement> elements, @NotNull Runnable request) {
+    request.run();
+
+    final int requiredCount = elements.stream().mapToInt(x -> myElement2Index.getOrDefault(x, -1) + 1).max().orElse(0);
+    if (requiredCount <= myLoadedCount) {
+      myPendingRequest = null;
+      return false;
+    }
+
+    myRequiredCount = requiredCount;
+    myPendingRequest = request;
+    return true;
+  }
+
+  /**
+   * @return true if more pages should be loaded for the pending request
+   */
+  boolean pageLoaded(int loadedCount) {
+    myLoadedCount = loadedCount;
+    if (myPendingRequest == null) {
+      return false;
+    }
+
+    if (myRequiredCount <= loadedCount) {
+      final Runnable request = myPendingRequest;
+      myPendingRequest = null;
+      request.run();
+      return false;
+    }
+
+    return true;
+  }
+}
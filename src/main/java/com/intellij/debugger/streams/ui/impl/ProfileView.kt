@@ -0,0 +1,71 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.ui.impl
+
+import com.intellij.debugger.streams.trace.CallProfile
+import com.intellij.debugger.streams.wrapper.StreamCallType
+import com.intellij.debugger.streams.wrapper.TraceUtil
+import com.intellij.ui.components.JBScrollPane
+import com.intellij.ui.table.JBTable
+import java.awt.BorderLayout
+import javax.swing.JPanel
+import javax.swing.table.AbstractTableModel
+
+/**
+ * Shows time, throughput and selectivity of every call of the traced chain
+ *
+ * @author Vitaliy.Bibaev
+ */
+class ProfileView(profile: List<CallProfile>) : JPanel(BorderLayout()) {
+  init {
+    add(JBScrollPane(JBTable(MyModel(profile))), BorderLayout.CENTER)
+  }
+
+  private class MyModel(private val profile: List<CallProfile>) : AbstractTableModel() {
+    private companion object {
+      val COLUMNS = arrayOf("Operation", "Time, ms", "Time, %", "Elements", "Elements per second", "Selectivity")
+      val NOT_APPLICABLE = "-"
+    }
+
+    private val totalNanos = profile.map { it.timeNanos }.sum()
+
+    override fun getRowCount(): Int = profile.size
+
+    override fun getColumnCount(): Int = COLUMNS.size
+
+    override fun getColumnName(column: Int): String = COLUMNS[column]
+
+    override fun getValueAt(row: Int, column: Int): Any {
+      val callProfile = profile[row]
+      val nanos = callProfile.timeNanos
+      val elements = callProfile.elementsBefore
+      return when (column) {
+        0 -> TraceUtil.formatWithArguments(callProfile.call)
+        1 -> String.format("%.3f", nanos / 1e6)
+        2 -> if (totalNanos == 0L) NOT_APPLICABLE else String.format("%.1f", 100.0 * nanos / totalNanos)
+        3 -> elements
+        4 -> if (nanos == 0L) NOT_APPLICABLE else (elements * 1e9 / nanos).toLong()
+        else -> selectivity(callProfile)
+      }
+    }
+
+    private fun selectivity(callProfile: CallProfile): Any {
+      val elements = callProfile.elementsBefore
+      if (callProfile.call.type == StreamCallType.TERMINATOR || elements == 0) return NOT_APPLICABLE
+      return String.format("%.3f", callProfile.elementsAfter.toDouble() / elements)
+    }
+  }
+}
@@ -35,7 +35,7 @@ public class SingleElementTree extends CollectionTree {
   SingleElementTree(@Nullable Value value,
                     @NotNull List<TraceElement> traceElements,
                     @NotNull EvaluationContextImpl evaluationContext) {
-    super(Collections.singletonList(value), traceElements, evaluationContext);
+    super(Collections.singletonList(value), traceElements, evaluationContext, false);
     addTreeListener(new XDebuggerTreeListener() {
       @Override
       public void nodeLoaded(@NotNull RestorableStateNode node, String name) {
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.ui.impl
+
+import com.intellij.debugger.streams.trace.WorkerThreadProfile
+import com.intellij.debugger.streams.wrapper.StreamChain
+import com.intellij.debugger.streams.wrapper.TraceUtil
+import com.intellij.ui.components.JBScrollPane
+import com.intellij.ui.table.JBTable
+import java.awt.BorderLayout
+import javax.swing.JPanel
+import javax.swing.table.AbstractTableModel
+
+/**
+ * Shows how the elements of a chain traced in parallel were split between the worker threads
+ *
+ * @author Vitaliy.Bibaev
+ */
+class ThreadsView(chain: StreamChain, threads: List<WorkerThreadProfile>) : JPanel(BorderLayout()) {
+  init {
+    add(JBScrollPane(JBTable(MyModel(chain, threads))), BorderLayout.CENTER)
+  }
+
+  private class MyModel(chain: StreamChain, private val threads: List<WorkerThreadProfile>) : AbstractTableModel() {
+    private val callNames = (0 until chain.length()).map { TraceUtil.formatWithArguments(chain.getCall(it)) }
+    private val totalElements = threads.map { it.totalElements }.sum()
+
+    override fun getRowCount(): Int = threads.size
+
+    override fun getColumnCount(): Int = callNames.size + 3
+
+    override fun getColumnName(column: Int): String = when (column) {
+      0 -> "Thread"
+      callNames.size + 1 -> "Elements"
+      callNames.size + 2 -> "Elements, %"
+      else -> callNames[column - 1]
+    }
+
+    override fun getValueAt(row: Int, column: Int): Any {
+      val thread = threads[row]
+      return when (column) {
+        0 -> thread.threadName
+        callNames.size + 1 -> thread.totalElements
+        callNames.size + 2 -> if (totalElements == 0) "-" else String.format("%.1f", 100.0 * thread.totalElements / totalElements)
+        else -> thread.getElements(column - 1)
+      }
+    }
+  }
+}
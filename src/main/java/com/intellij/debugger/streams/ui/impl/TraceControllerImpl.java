@@ -29,23 +29,33 @@ import com.sun.jdi.Value;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
+ * Highlighting is propagated through the chain by positions of elements in the traces of neighbour controllers:
+ * links between the positions are computed once, so every stage is visited once and linked elements are not duplicated.
+ * Elements of all stages are collected before they are highlighted, then every container is repainted once
+ *
  * @author Vitaliy.Bibaev
  */
 public class TraceControllerImpl implements TraceController, Disposable {
+  private static final int[][] NO_LINKS = new int[0][];
+
   private final List<TraceContainer> myTraceContainers = new CopyOnWriteArrayList<>();
   private final ValuesSelectionListener mySelectionListener;
   private final IntermediateState myState;
   private final PrevAwareState myToPrev;
   private final NextAwareState myToNext;
 
-  private TraceController myPrevListener = null;
-  private TraceController myNextListener = null;
+  private TraceControllerImpl myPrevListener = null;
+  private TraceControllerImpl myNextListener = null;
+
+  private Map<TraceElement, Integer> myPositions = null;
+  private int[][] myNextLinks = null;
+  private int[][] myPrevLinks = null;
 
   TraceControllerImpl(@NotNull IntermediateState state) {
     myState = state;
@@ -53,10 +63,16 @@ public class TraceControllerImpl implements TraceController, Disposable {
     myToNext = state instanceof NextAwareState ? (NextAwareState)state : null;
 
     mySelectionListener = elements -> {
+      final Map<TraceControllerImpl, List<TraceElement>> highlighting = new LinkedHashMap<>();
+      final BitSet positions = toPositions(elements);
+      collectLinked(positions, PropagationDirection.FORWARD, highlighting);
+      collectLinked(positions, PropagationDirection.BACKWARD, highlighting);
+
       selectAll(elements);
+      highlighting.forEach(TraceControllerImpl::highlightAll);
 
-      propagateForward(elements);
-      propagateBackward(elements);
+      updatePresentation();
+      highlighting.keySet().forEach(TraceControllerImpl::updatePresentation);
     };
   }
 
@@ -64,11 +80,11 @@ public class TraceControllerImpl implements TraceController, Disposable {
   public void dispose() {
   }
 
-  void setPreviousController(@NotNull TraceController listener) {
+  void setPreviousController(@NotNull TraceControllerImpl listener) {
     myPrevListener = listener;
   }
 
-  void setNextController(@NotNull TraceController listener) {
+  void setNextController(@NotNull TraceControllerImpl listener) {
     myNextListener = listener;
   }
 
@@ -128,31 +144,131 @@ public class TraceControllerImpl implements TraceController, Disposable {
 
   @Override
   public void highlightingChanged(@NotNull List<TraceElement> values, @NotNull PropagationDirection direction) {
-    highlightAll(values);
-    propagate(values, direction);
+    final Map<TraceControllerImpl, List<TraceElement>> highlighting = new LinkedHashMap<>();
+    highlighting.put(this, values);
+    collectLinked(toPositions(values), direction, highlighting);
+
+    highlighting.forEach(TraceControllerImpl::highlightAll);
+    highlighting.keySet().forEach(TraceControllerImpl::updatePresentation);
+  }
+
+  /**
+   * Walks the chain from this controller in the direction and puts the linked elements of every passed controller to the result
+   */
+  private void collectLinked(@NotNull BitSet positions,
+                             @NotNull PropagationDirection direction,
+                             @NotNull Map<TraceControllerImpl, List<TraceElement>> result) {
+    final boolean isForward = PropagationDirection.FORWARD.equals(direction);
+    TraceControllerImpl controller = this;
+    BitSet current = positions;
+    TraceControllerImpl neighbour = isForward ? myNextListener : myPrevListener;
+    while (neighbour != null) {
+      final int[][] links = isForward ? controller.getNextLinks(neighbour) : controller.getPrevLinks(neighbour);
+      if (links == null) {
+        final TraceControllerImpl from = controller;
+        final List<TraceElement> linkedValues = controller.toElements(current).stream()
+          .flatMap(x -> (isForward ? from.getNextValues(x) : from.getPrevValues(x)).stream())
+          .collect(Collectors.toList());
+        result.put(neighbour, linkedValues);
+        current = neighbour.toPositions(linkedValues);
+      }
+      else {
+        final BitSet linkedPositions = new BitSet();
+        for (int i = current.nextSetBit(0); i >= 0; i = current.nextSetBit(i + 1)) {
+          for (final int linked : links[i]) {
+            linkedPositions.set(linked);
+          }
+        }
+
+        result.put(neighbour, neighbour.toElements(linkedPositions));
+        current = linkedPositions;
+      }
+
+      controller = neighbour;
+      neighbour = isForward ? controller.myNextListener : controller.myPrevListener;
+    }
+  }
+
+  @Nullable
+  private int[][] getNextLinks(@NotNull TraceControllerImpl next) {
+    if (myNextLinks == null) {
+      myNextLinks = computeLinks(next, this::getNextValues);
+    }
+
+    return myNextLinks == NO_LINKS ? null : myNextLinks;
+  }
+
+  @Nullable
+  private int[][] getPrevLinks(@NotNull TraceControllerImpl prev) {
+    if (myPrevLinks == null) {
+      myPrevLinks = computeLinks(prev, this::getPrevValues);
+    }
+
+    return myPrevLinks == NO_LINKS ? null : myPrevLinks;
   }
 
-  private void propagate(@NotNull List<TraceElement> values, @NotNull PropagationDirection direction) {
-    if (direction.equals(PropagationDirection.BACKWARD)) {
-      propagateBackward(values);
+  /**
+   * Returns positions of the linked elements in the trace of the neighbour for every element of the trace,
+   * or {@link #NO_LINKS} if some linked elements are absent in the trace of the neighbour
+   */
+  @NotNull
+  private int[][] computeLinks(@NotNull TraceControllerImpl neighbour,
+                               @NotNull Function<TraceElement, List<TraceElement>> linkedValues) {
+    final Map<TraceElement, Integer> neighbourPositions = neighbour.getPositions();
+    final List<TraceElement> trace = getTrace();
+    final int[][] links = new int[trace.size()][];
+    for (int i = 0; i < links.length; i++) {
+      final List<TraceElement> linked = linkedValues.apply(trace.get(i));
+      links[i] = new int[linked.size()];
+      for (int j = 0; j < links[i].length; j++) {
+        final Integer position = neighbourPositions.get(linked.get(j));
+        if (position == null) {
+          return NO_LINKS;
+        }
+
+        links[i][j] = position;
+      }
     }
-    else {
-      propagateForward(values);
+
+    return links;
+  }
+
+  @NotNull
+  private Map<TraceElement, Integer> getPositions() {
+    if (myPositions == null) {
+      final List<TraceElement> trace = getTrace();
+      myPositions = new HashMap<>(trace.size());
+      for (int i = 0; i < trace.size(); i++) {
+        myPositions.put(trace.get(i), i);
+      }
     }
+
+    return myPositions;
   }
 
-  private void propagateForward(@NotNull List<TraceElement> values) {
-    if (myNextListener == null) return;
-    final List<TraceElement> nextValues =
-      values.stream().flatMap(x -> getNextValues(x).stream()).collect(Collectors.toList());
-    myNextListener.highlightingChanged(nextValues, PropagationDirection.FORWARD);
+  @NotNull
+  private BitSet toPositions(@NotNull List<TraceElement> values) {
+    final Map<TraceElement, Integer> positions = getPositions();
+    final BitSet result = new BitSet();
+    for (final TraceElement value : values) {
+      final Integer position = positions.get(value);
+      if (position != null) {
+        result.set(position);
+      }
+    }
+
+    return result;
   }
 
-  private void propagateBackward(@NotNull List<TraceElement> values) {
-    if (myPrevListener == null) return;
-    final List<TraceElement> prevValues =
-      values.stream().flatMap(x -> getPrevValues(x).stream()).collect(Collectors.toList());
-    myPrevListener.highlightingChanged(prevValues, PropagationDirection.BACKWARD);
+  @NotNull
+  private List<TraceElement> toElements(@NotNull BitSet positions) {
+    final List<TraceElement> trace = getTrace();
+    final List<TraceElement> result = new ArrayList<>(positions.cardinality());
+    for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+      result.add(trace.get(i));
+    }
+
+    return result;
   }
 
   private void highlightAll(@NotNull List<TraceElement> values) {
@@ -167,6 +283,12 @@ public class TraceControllerImpl implements TraceController, Disposable {
     }
   }
 
+  private void updatePresentation() {
+    for (final TraceContainer listener : myTraceContainers) {
+      listener.updatePresentation();
+    }
+  }
+
   private boolean selectionExistsForward() {
     return myNextListener != null && myNextListener.isSelectionExists(PropagationDirection.FORWARD);
   }
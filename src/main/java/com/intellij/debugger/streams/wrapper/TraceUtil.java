@@ -52,6 +52,34 @@ public class TraceUtil {
     throw new RuntimeException("unknown primitive value: " + value.type().name());
   }
 
+  @Nullable
+  public static String tryExtractExceptionMessage(@NotNull ObjectReference exception) {
+    final ReferenceType type = exception.referenceType();
+    final Field messageField = type.fieldByName("detailMessage");
+    if (messageField == null) return null;
+    final Value message = exception.getValue(messageField);
+    if (message instanceof StringReference) {
+      return ((StringReference)message).value();
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the cause of the exception, or null if it has no cause. A throwable without a cause references itself
+   */
+  @Nullable
+  public static ObjectReference tryExtractExceptionCause(@NotNull ObjectReference exception) {
+    final Field causeField = exception.referenceType().fieldByName("cause");
+    if (causeField == null) return null;
+    final Value cause = exception.getValue(causeField);
+    if (cause instanceof ObjectReference && !exception.equals(cause)) {
+      return (ObjectReference)cause;
+    }
+
+    return null;
+  }
+
   @NotNull
   public static String formatWithArguments(@NotNull MethodCall call) {
     return call.getName() + StreamEx.of(call.getArguments())
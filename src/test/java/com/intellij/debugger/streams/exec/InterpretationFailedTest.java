@@ -0,0 +1,65 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.exec;
+
+import com.intellij.debugger.streams.trace.PinnedTraceValues;
+import com.intellij.debugger.streams.trace.TraceResultInterpreter;
+import com.intellij.debugger.streams.trace.impl.TraceResultInterpreterImpl;
+import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.sun.jdi.ObjectReference;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class InterpretationFailedTest extends FailEvaluationTestCase {
+  private final MyPinnedValues myPinnedValues = new MyPinnedValues();
+
+  public void testInterpretationFailureReleasesValues() {
+    doTest(false);
+  }
+
+  @Override
+  protected TraceResultInterpreter getResultInterpreter() {
+    return new TraceResultInterpreterImpl(callName -> {
+      throw new IllegalStateException("interpreter failed");
+    }) {
+      @NotNull
+      @Override
+      protected PinnedTraceValues createPinnedValues() {
+        return myPinnedValues;
+      }
+    };
+  }
+
+  @Override
+  protected void handleError(@NotNull StreamChain chain, @NotNull String error, @NotNull FailureReason reason) {
+    super.handleError(chain, error, reason);
+    println("pinned: " + myPinnedValues.myIsPinned, ProcessOutputTypes.SYSTEM);
+    println("released: " + myPinnedValues.getValues().isEmpty(), ProcessOutputTypes.SYSTEM);
+  }
+
+  private static class MyPinnedValues extends PinnedTraceValues {
+    private volatile boolean myIsPinned;
+
+    @Override
+    public synchronized void pin(@NotNull ObjectReference value) {
+      super.pin(value);
+      myIsPinned = !getValues().isEmpty();
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.exec;
+
+import com.intellij.debugger.streams.test.TraceExecutionTestCase;
+import com.intellij.debugger.streams.trace.ElementsCount;
+import com.intellij.debugger.streams.trace.TracingResult;
+import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.intellij.execution.process.ProcessOutputTypes;
+import one.util.streamex.StreamEx;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class InterruptedThreadTest extends TraceExecutionTestCase {
+  public void testInterruptedThreadTraced() {
+    doTest(false);
+  }
+
+  @Override
+  protected void handleSuccess(@Nullable StreamChain chain, @Nullable TracingResult result, boolean resultMustBeNull) {
+    assertNotNull(chain);
+    assertNotNull(result);
+    println(chain.getText(), ProcessOutputTypes.SYSTEM);
+    println("aborted: " + result.getAbortReason(), ProcessOutputTypes.SYSTEM);
+    println("elements: " + StreamEx.of(result.getElementsCount()).map(ElementsCount::getPassed).joining(", "), ProcessOutputTypes.SYSTEM);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.exec;
+
+import com.intellij.debugger.streams.resolve.ResolvedStreamCall;
+import com.intellij.debugger.streams.settings.StreamDebuggerSettings;
+import com.intellij.debugger.streams.test.TraceExecutionTestCase;
+import com.intellij.debugger.streams.trace.PrevAwareState;
+import com.intellij.debugger.streams.trace.ResolvedTracingResult;
+import com.intellij.debugger.streams.trace.TraceElement;
+import com.intellij.debugger.streams.trace.TracingResult;
+import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.intellij.execution.process.ProcessOutputTypes;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class ParallelTracingTest extends TraceExecutionTestCase {
+  private static final int RECORDED_ELEMENTS_BUDGET = 100;
+
+  private boolean myWasParallelTracingEnabled;
+  private boolean myWasBudgetEnabled;
+  private int myPreviousRecordedElementsBudget;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myWasParallelTracingEnabled = StreamDebuggerSettings.isParallelTracingEnabled();
+    myWasBudgetEnabled = StreamDebuggerSettings.isBudgetEnabled();
+    myPreviousRecordedElementsBudget = StreamDebuggerSettings.getRecordedElementsBudget();
+    StreamDebuggerSettings.setParallelTracingEnabled(true);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      StreamDebuggerSettings.setParallelTracingEnabled(myWasParallelTracingEnabled);
+      StreamDebuggerSettings.setBudgetEnabled(myWasBudgetEnabled);
+      StreamDebuggerSettings.setRecordedElementsBudget(myPreviousRecordedElementsBudget);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testParallelFilterAndMap() {
+    doTest(false);
+  }
+
+  public void testAbortedInWorkerThread() {
+    StreamDebuggerSettings.setBudgetEnabled(true);
+    StreamDebuggerSettings.setRecordedElementsBudget(RECORDED_ELEMENTS_BUDGET);
+    doTest(true);
+  }
+
+  @Override
+  protected void handleSuccess(@Nullable StreamChain chain, @Nullable TracingResult result, boolean resultMustBeNull) {
+    assertNotNull(chain);
+    assertNotNull(result);
+    println(chain.getText(), ProcessOutputTypes.SYSTEM);
+    if (result.getAbortReason() != null) {
+      println("aborted: " + result.getAbortReason(), ProcessOutputTypes.SYSTEM);
+      return;
+    }
+
+    // the order of elements depends on the scheduling of the worker threads, so only the numbers of elements are printed
+    final ResolvedTracingResult resolvedTrace = result.resolve(getLibrarySupportProvider().getLibrarySupport().getResolverFactory());
+    for (final ResolvedStreamCall.Intermediate call : resolvedTrace.getResolvedChain().getIntermediateCalls()) {
+      println(call.getCall().getName(), ProcessOutputTypes.SYSTEM);
+      println("    before: " + call.getStateBefore().getTrace().size(), ProcessOutputTypes.SYSTEM);
+      println("    after: " + call.getStateAfter().getTrace().size(), ProcessOutputTypes.SYSTEM);
+      checkPassedInSameThread(call.getStateAfter());
+    }
+
+    println("traced in parallel: " + !result.getWorkerThreads().isEmpty(), ProcessOutputTypes.SYSTEM);
+  }
+
+  private static void checkPassedInSameThread(@NotNull PrevAwareState state) {
+    for (final TraceElement element : state.getTrace()) {
+      final List<TraceElement> prevValues = state.getPrevValues(element);
+      assertEquals(1, prevValues.size());
+      final TraceElement prevElement = prevValues.get(0);
+      assertTrue(prevElement.getTime() < element.getTime());
+      assertNotNull(element.getThreadName());
+      assertEquals(element.getThreadName(), prevElement.getThreadName());
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.exec;
+
+import com.intellij.debugger.streams.settings.StreamDebuggerSettings;
+import com.intellij.debugger.streams.test.TraceExecutionTestCase;
+import com.intellij.debugger.streams.trace.TracingResult;
+import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.intellij.execution.process.ProcessOutputTypes;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class TraceLimitTest extends TraceExecutionTestCase {
+  private static final int TRACE_LIMIT = 2;
+
+  private boolean myWasLimitEnabled;
+  private int myPreviousLimit;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myWasLimitEnabled = StreamDebuggerSettings.isElementsLimitEnabled();
+    myPreviousLimit = StreamDebuggerSettings.getElementsLimit();
+    StreamDebuggerSettings.setElementsLimitEnabled(true);
+    StreamDebuggerSettings.setElementsLimit(TRACE_LIMIT);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      StreamDebuggerSettings.setElementsLimitEnabled(myWasLimitEnabled);
+      StreamDebuggerSettings.setElementsLimit(myPreviousLimit);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testSortedWithLimit() {
+    doTest(false);
+  }
+
+  public void testDistinctWithLimit() {
+    doTest(false);
+  }
+
+  public void testFlatMapWithLimit() {
+    doTest(false);
+  }
+
+  public void testFilterWithLimit() {
+    doTest(false);
+  }
+
+  @Override
+  protected void handleSuccess(@Nullable StreamChain chain, @Nullable TracingResult result, boolean resultMustBeNull) {
+    super.handleSuccess(chain, result, resultMustBeNull);
+    assertNotNull(result);
+    println("truncated: " + result.isTruncated(), ProcessOutputTypes.SYSTEM);
+  }
+}
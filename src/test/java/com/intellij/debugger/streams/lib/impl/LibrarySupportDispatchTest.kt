@@ -0,0 +1,174 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.lib.impl
+
+import com.intellij.debugger.streams.lib.IntermediateOperation
+import com.intellij.debugger.streams.lib.TerminalOperation
+import com.intellij.debugger.streams.resolve.DistinctResolver
+import com.intellij.debugger.streams.resolve.EmptyResolver
+import com.intellij.debugger.streams.resolve.FilterResolver
+import com.intellij.debugger.streams.resolve.IdentityResolver
+import com.intellij.debugger.streams.resolve.ValuesOrderResolver
+import com.intellij.debugger.streams.trace.CallTraceInterpreter
+import com.intellij.debugger.streams.trace.IntermediateCallHandler
+import com.intellij.debugger.streams.trace.TerminatorCallHandler
+import com.intellij.debugger.streams.trace.dsl.Dsl
+import com.intellij.debugger.streams.trace.dsl.impl.DslImpl
+import com.intellij.debugger.streams.trace.dsl.impl.java.JavaStatementFactory
+import com.intellij.debugger.streams.trace.dsl.impl.java.JavaTypes
+import com.intellij.debugger.streams.trace.impl.handler.unified.DistinctByKeyHandler
+import com.intellij.debugger.streams.trace.impl.handler.unified.DistinctTraceHandler
+import com.intellij.debugger.streams.trace.impl.handler.unified.PeekTraceHandler
+import com.intellij.debugger.streams.trace.impl.handler.unified.TerminatorTraceHandler
+import com.intellij.debugger.streams.trace.impl.interpret.CollectIdentityTraceInterpreter
+import com.intellij.debugger.streams.trace.impl.interpret.DistinctCallTraceInterpreter
+import com.intellij.debugger.streams.trace.impl.interpret.SimplePeekCallTraceInterpreter
+import com.intellij.debugger.streams.wrapper.CallArgument
+import com.intellij.debugger.streams.wrapper.IntermediateStreamCall
+import com.intellij.debugger.streams.wrapper.TerminatorStreamCall
+import com.intellij.debugger.streams.wrapper.impl.CallArgumentImpl
+import com.intellij.debugger.streams.wrapper.impl.IntermediateStreamCallImpl
+import com.intellij.debugger.streams.wrapper.impl.TerminatorStreamCallImpl
+import com.intellij.openapi.util.TextRange
+import com.intellij.testFramework.UsefulTestCase.assertInstanceOf
+import junit.framework.TestCase
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+class LibrarySupportDispatchTest : TestCase() {
+  private val dsl = DslImpl(JavaStatementFactory())
+
+  fun testOverriddenIntermediateOperation() {
+    val base = MyIntermediateOperation("op")
+    val override = MyIntermediateOperation("op")
+    val library = MyLibrary(MyLibrary(intermediate = listOf(base)), intermediate = listOf(override))
+
+    assertSame(override.traceInterpreter, library.interpreterFactory.getInterpreter("op"))
+    assertSame(override.valuesOrderResolver, library.resolverFactory.getResolver("op"))
+    val handler = library.createHandlerFactory(dsl).getForIntermediate(0, intermediateCall("op"))
+    assertSame(override.lastHandler, handler)
+    assertNull(base.lastHandler)
+  }
+
+  fun testOperationOfCompatibleLibrary() {
+    val base = MyIntermediateOperation("op")
+    val library = MyLibrary(MyLibrary(MyLibrary(intermediate = listOf(base))))
+
+    assertSame(base.traceInterpreter, library.interpreterFactory.getInterpreter("op"))
+    assertSame(base.valuesOrderResolver, library.resolverFactory.getResolver("op"))
+    val handler = library.createHandlerFactory(dsl).getForIntermediate(0, intermediateCall("op"))
+    assertSame(base.lastHandler, handler)
+  }
+
+  fun testTerminalOperationOverridesIntermediateOfCompatibleLibrary() {
+    val baseIntermediate = MyIntermediateOperation("op")
+    val terminal = MyTerminalOperation("op")
+    val library = MyLibrary(MyLibrary(intermediate = listOf(baseIntermediate)), terminal = listOf(terminal))
+
+    // interpreters and resolvers are looked up by name only, operations of the library go first
+    assertSame(terminal.traceInterpreter, library.interpreterFactory.getInterpreter("op"))
+    assertSame(terminal.valuesOrderResolver, library.resolverFactory.getResolver("op"))
+
+    // handlers are looked up by the kind of the call as well
+    val handlerFactory = library.createHandlerFactory(dsl)
+    val intermediateHandler = handlerFactory.getForIntermediate(0, intermediateCall("op"))
+    assertSame(baseIntermediate.lastHandler, intermediateHandler)
+    val terminatorHandler = handlerFactory.getForTermination(terminatorCall("op"), "result")
+    assertSame(terminal.lastHandler, terminatorHandler)
+  }
+
+  fun testIntermediateOperationOverridesTerminalOfSameLibrary() {
+    val intermediate = MyIntermediateOperation("op")
+    val terminal = MyTerminalOperation("op")
+    val library = MyLibrary(intermediate = listOf(intermediate), terminal = listOf(terminal))
+
+    assertSame(intermediate.traceInterpreter, library.interpreterFactory.getInterpreter("op"))
+    assertSame(intermediate.valuesOrderResolver, library.resolverFactory.getResolver("op"))
+  }
+
+  fun testUnknownOperation() {
+    val library = MyLibrary(MyLibrary(intermediate = listOf(MyIntermediateOperation("op"))))
+
+    assertInstanceOf(library.interpreterFactory.getInterpreter("unknown"), SimplePeekCallTraceInterpreter::class.java)
+    assertInstanceOf(library.resolverFactory.getResolver("unknown"), EmptyResolver::class.java)
+    val handlerFactory = library.createHandlerFactory(dsl)
+    assertInstanceOf(handlerFactory.getForIntermediate(0, intermediateCall("unknown")), PeekTraceHandler::class.java)
+    assertInstanceOf(handlerFactory.getForTermination(terminatorCall("unknown"), "result"), TerminatorTraceHandler::class.java)
+  }
+
+  fun testDistinctOfStreamEx() {
+    val library = StreamExLibrarySupport()
+
+    assertInstanceOf(library.interpreterFactory.getInterpreter("distinct"), DistinctCallTraceInterpreter::class.java)
+    assertInstanceOf(library.resolverFactory.getResolver("distinct"), DistinctResolver::class.java)
+
+    // the handler of StreamEx supports a key extractor, the handler of the standard library does not
+    val handlerFactory = library.createHandlerFactory(dsl)
+    assertInstanceOf(handlerFactory.getForIntermediate(0, intermediateCall("distinct")), DistinctTraceHandler::class.java)
+    val keyExtractor = CallArgumentImpl("java.util.function.Function<java.lang.Object, java.lang.Object>", "x -> x")
+    assertInstanceOf(handlerFactory.getForIntermediate(0, intermediateCall("distinct", keyExtractor)), DistinctByKeyHandler::class.java)
+  }
+
+  fun testStandardOperationsOfStreamEx() {
+    val library = StreamExLibrarySupport()
+    val standardLibrary = StandardLibrarySupport()
+
+    for (name in listOf("filter", "sorted", "toArray", "unknown")) {
+      assertEquals(name, standardLibrary.interpreterFactory.getInterpreter(name).javaClass,
+                   library.interpreterFactory.getInterpreter(name).javaClass)
+      assertEquals(name, standardLibrary.resolverFactory.getResolver(name).javaClass, library.resolverFactory.getResolver(name).javaClass)
+    }
+
+    assertInstanceOf(library.resolverFactory.getResolver("filter"), FilterResolver::class.java)
+    assertInstanceOf(library.resolverFactory.getResolver("sorted"), IdentityResolver::class.java)
+    assertInstanceOf(library.interpreterFactory.getInterpreter("toArray"), CollectIdentityTraceInterpreter::class.java)
+  }
+
+  private fun intermediateCall(name: String, vararg args: CallArgument): IntermediateStreamCall =
+    IntermediateStreamCallImpl(name, args.toList(), JavaTypes.ANY, JavaTypes.ANY, TextRange.EMPTY_RANGE)
+
+  private fun terminatorCall(name: String): TerminatorStreamCall =
+    TerminatorStreamCallImpl(name, emptyList(), JavaTypes.ANY, JavaTypes.ANY, TextRange.EMPTY_RANGE)
+
+  private class MyLibrary(compatibleLibrary: MyLibrary? = null,
+                          intermediate: List<IntermediateOperation> = emptyList(),
+                          terminal: List<TerminalOperation> = emptyList())
+    : LibrarySupportBase(compatibleLibrary ?: LibrarySupportBase.EMPTY) {
+    init {
+      addIntermediateOperationsSupport(*intermediate.toTypedArray())
+      addTerminationOperationsSupport(*terminal.toTypedArray())
+    }
+  }
+
+  private class MyIntermediateOperation(override val name: String) : IntermediateOperation {
+    override val traceInterpreter: CallTraceInterpreter = SimplePeekCallTraceInterpreter()
+    override val valuesOrderResolver: ValuesOrderResolver = IdentityResolver()
+    var lastHandler: IntermediateCallHandler? = null
+
+    override fun getTraceHandler(callOrder: Int, call: IntermediateStreamCall, dsl: Dsl): IntermediateCallHandler =
+      PeekTraceHandler.create(callOrder, call.name, call.typeBefore, call.typeAfter, dsl).also { lastHandler = it }
+  }
+
+  private class MyTerminalOperation(override val name: String) : TerminalOperation {
+    override val traceInterpreter: CallTraceInterpreter = SimplePeekCallTraceInterpreter()
+    override val valuesOrderResolver: ValuesOrderResolver = IdentityResolver()
+    var lastHandler: TerminatorCallHandler? = null
+
+    override fun getTraceHandler(call: TerminatorStreamCall, resultExpression: String, dsl: Dsl): TerminatorCallHandler =
+      TerminatorTraceHandler(call, dsl).also { lastHandler = it }
+  }
+}
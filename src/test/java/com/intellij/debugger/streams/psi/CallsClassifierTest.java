@@ -0,0 +1,147 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.psi;
+
+import com.intellij.debugger.streams.test.JdkManager;
+import com.intellij.openapi.module.ModuleType;
+import com.intellij.openapi.module.StdModuleTypes;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.psi.PsiMethodCallExpression;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.LightCodeInsightTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class CallsClassifierTest extends LightCodeInsightTestCase {
+  private static final String FILE_TEXT = "import java.util.Arrays;\n" +
+                                          "import java.util.stream.Stream;\n" +
+                                          "public class Calls {\n" +
+                                          "  void f() {\n" +
+                                          "    Stream.of(1, 2).map(x -> x + 1).count();\n" +
+                                          "    Arrays.asList(1, 2).stream().filter(x -> x > 1).forEach(System.out::println);\n" +
+                                          "    Integer.valueOf(1);\n" +
+                                          "    \"abc\".length();\n" +
+                                          "    unknown();\n" +
+                                          "  }\n" +
+                                          "}\n";
+
+  @Override
+  protected Sdk getProjectJDK() {
+    return JdkManager.getMockJdk18();
+  }
+
+  @NotNull
+  @Override
+  protected ModuleType getModuleType() {
+    return StdModuleTypes.JAVA;
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    configureFromFileText("Calls.java", FILE_TEXT);
+  }
+
+  public void testProducerCalls() {
+    final StreamApiUtil.CallsClassifier classifier = new StreamApiUtil.CallsClassifier();
+    checkProducer(classifier, findCall("of"), "java.util.stream");
+    checkProducer(classifier, findCall("stream"), "java.util");
+  }
+
+  public void testStaticCallIsProducer() {
+    final StreamApiUtil.CallsClassifier classifier = new StreamApiUtil.CallsClassifier();
+    checkProducer(classifier, findCall("valueOf"), "java.lang");
+  }
+
+  public void testIntermediateCalls() {
+    final StreamApiUtil.CallsClassifier classifier = new StreamApiUtil.CallsClassifier();
+    checkIntermediate(classifier, findCall("map"));
+    checkIntermediate(classifier, findCall("filter"));
+  }
+
+  public void testTerminationCalls() {
+    final StreamApiUtil.CallsClassifier classifier = new StreamApiUtil.CallsClassifier();
+    checkTermination(classifier, findCall("count"));
+    checkTermination(classifier, findCall("forEach"));
+  }
+
+  public void testNotStreamCalls() {
+    final StreamApiUtil.CallsClassifier classifier = new StreamApiUtil.CallsClassifier();
+    checkNotStreamCall(classifier, findCall("asList"), "java.util");
+    checkNotStreamCall(classifier, findCall("length"), "java.lang");
+    checkNotStreamCall(classifier, findCall("unknown"), "");
+  }
+
+  public void testSameKindsAsStreamApiUtil() {
+    final StreamApiUtil.CallsClassifier classifier = new StreamApiUtil.CallsClassifier();
+    for (final PsiMethodCallExpression call : PsiTreeUtil.findChildrenOfType(getFile(), PsiMethodCallExpression.class)) {
+      final String name = call.getMethodExpression().getReferenceName();
+      // the second pass takes the kinds from the cache
+      for (int i = 0; i < 2; i++) {
+        assertEquals(name, StreamApiUtil.isStreamCall(call), classifier.isStreamCall(call));
+        assertEquals(name, StreamApiUtil.isProducerStreamCall(call), classifier.isProducerStreamCall(call));
+        assertEquals(name, StreamApiUtil.isTerminationStreamCall(call), classifier.isTerminationStreamCall(call));
+      }
+    }
+  }
+
+  private static void checkProducer(@NotNull StreamApiUtil.CallsClassifier classifier,
+                                    @NotNull PsiMethodCallExpression call,
+                                    @NotNull String packageName) {
+    assertTrue(classifier.isStreamCall(call));
+    assertTrue(classifier.isProducerStreamCall(call));
+    assertFalse(classifier.isTerminationStreamCall(call));
+    assertEquals(packageName, classifier.getPackageName(call));
+  }
+
+  private static void checkIntermediate(@NotNull StreamApiUtil.CallsClassifier classifier, @NotNull PsiMethodCallExpression call) {
+    assertTrue(classifier.isStreamCall(call));
+    assertFalse(classifier.isProducerStreamCall(call));
+    assertFalse(classifier.isTerminationStreamCall(call));
+    assertEquals("java.util.stream", classifier.getPackageName(call));
+  }
+
+  private static void checkTermination(@NotNull StreamApiUtil.CallsClassifier classifier, @NotNull PsiMethodCallExpression call) {
+    assertTrue(classifier.isStreamCall(call));
+    assertFalse(classifier.isProducerStreamCall(call));
+    assertTrue(classifier.isTerminationStreamCall(call));
+    assertEquals("java.util.stream", classifier.getPackageName(call));
+  }
+
+  private static void checkNotStreamCall(@NotNull StreamApiUtil.CallsClassifier classifier,
+                                         @NotNull PsiMethodCallExpression call,
+                                         @NotNull String packageName) {
+    assertFalse(classifier.isStreamCall(call));
+    assertFalse(classifier.isProducerStreamCall(call));
+    assertFalse(classifier.isTerminationStreamCall(call));
+    assertEquals(packageName, classifier.getPackageName(call));
+  }
+
+  @NotNull
+  private static PsiMethodCallExpression findCall(@NotNull String name) {
+    final Collection<PsiMethodCallExpression> calls = PsiTreeUtil.findChildrenOfType(getFile(), PsiMethodCallExpression.class);
+    final List<PsiMethodCallExpression> result =
+      calls.stream().filter(x -> name.equals(x.getMethodExpression().getReferenceName())).collect(Collectors.toList());
+    assertEquals(1, result.size());
+    return result.get(0);
+  }
+}
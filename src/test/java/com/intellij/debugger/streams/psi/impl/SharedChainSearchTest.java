@@ -0,0 +1,72 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.psi.impl;
+
+import com.intellij.debugger.streams.test.StreamChainBuilderTestCase;
+import com.intellij.debugger.streams.wrapper.StreamChain;
+import com.intellij.debugger.streams.wrapper.StreamChainBuilder;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class SharedChainSearchTest extends StreamChainBuilderTestCase {
+  private final StreamChainBuilder myStandardBuilder = new JavaStreamChainBuilder(new JavaChainTransformerImpl(), "java.util.stream");
+  private final StreamChainBuilder myStreamExBuilder = new JavaStreamChainBuilder(new JavaChainTransformerImpl(), "one.util.streamex");
+
+  @NotNull
+  @Override
+  protected String getRelativeTestPath() {
+    return "chain" + File.separator + "shared";
+  }
+
+  public void testStandardChain() {
+    doTest(1);
+  }
+
+  public void testTwoChains() {
+    doTest(2);
+  }
+
+  private void doTest(int chainsCount) {
+    ApplicationManager.getApplication().runReadAction(() -> {
+      final PsiElement element = configureAndGetElementAtCaret();
+
+      final JavaStreamChainBuilder.MySearchResult search = JavaStreamChainBuilder.search(element);
+      assertTrue(myStandardBuilder.isChainExists(element));
+      assertFalse(myStreamExBuilder.isChainExists(element));
+      assertSame(search, JavaStreamChainBuilder.search(element));
+
+      // chains of other libraries differ only by packages of calls, so all the builders find the same chains
+      final List<String> standardChains = toText(myStandardBuilder.build(element));
+      final List<String> streamExChains = toText(myStreamExBuilder.build(element));
+      assertEquals(chainsCount, standardChains.size());
+      assertEquals(standardChains, streamExChains);
+      assertSame(search, JavaStreamChainBuilder.search(element));
+    });
+  }
+
+  @NotNull
+  private static List<String> toText(@NotNull List<StreamChain> chains) {
+    return chains.stream().map(StreamChain::getText).sorted().collect(Collectors.toList());
+  }
+}
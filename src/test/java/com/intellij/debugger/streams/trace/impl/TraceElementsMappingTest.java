@@ -0,0 +1,121 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.impl;
+
+import com.intellij.debugger.streams.trace.TraceElement;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class TraceElementsMappingTest extends TestCase {
+  public void testLookup() {
+    final Map<TraceElement, List<TraceElement>> mapping = new HashMap<>();
+    mapping.put(element(3), Arrays.asList(element(7), element(5)));
+    mapping.put(element(1), Collections.singletonList(element(4)));
+
+    final TraceElementsMapping result = TraceElementsMapping.of(mapping);
+    checkTimes(result.get(element(1)), 4);
+    checkTimes(result.get(element(3)), 7, 5);
+    checkTimes(result.get(element(2)));
+  }
+
+  public void testEmptyLinks() {
+    final Map<TraceElement, List<TraceElement>> mapping = new HashMap<>();
+    mapping.put(element(1), Collections.emptyList());
+    mapping.put(element(2), Collections.singletonList(element(3)));
+
+    final TraceElementsMapping result = TraceElementsMapping.of(mapping);
+    checkTimes(result.get(element(1)));
+    checkTimes(result.get(element(2)), 3);
+    checkTimes(TraceElementsMapping.of(Collections.emptyMap()).get(element(1)));
+  }
+
+  public void testDuplicateTargetTimes() {
+    final TraceElement target = element(5);
+    final Map<TraceElement, List<TraceElement>> mapping = new HashMap<>();
+    mapping.put(element(1), Arrays.asList(target, element(6)));
+    mapping.put(element(2), Arrays.asList(element(5), element(5)));
+
+    final TraceElementsMapping result = TraceElementsMapping.of(mapping);
+    checkTimes(result.get(element(1)), 5, 6);
+    checkTimes(result.get(element(2)), 5, 5);
+    assertSame(result.get(element(1)).get(0), result.get(element(2)).get(0));
+  }
+
+  public void testDuplicateSourceTimes() {
+    final Map<TraceElement, List<TraceElement>> mapping = new IdentityHashMap<>();
+    mapping.put(element(1), Collections.singletonList(element(3)));
+    mapping.put(element(1), Collections.singletonList(element(4)));
+    mapping.put(element(2), Collections.singletonList(element(5)));
+
+    final TraceElementsMapping result = TraceElementsMapping.of(mapping);
+    final List<Integer> times = toTimes(result.get(element(1)));
+    Collections.sort(times);
+    assertEquals(Arrays.asList(3, 4), times);
+    checkTimes(result.get(element(2)), 5);
+  }
+
+  public void testNullElements() {
+    final Map<TraceElement, List<TraceElement>> mapping = new HashMap<>();
+    mapping.put(null, Collections.singletonList(element(4)));
+    mapping.put(element(1), null);
+    mapping.put(element(2), Arrays.asList(null, element(5), null));
+
+    final TraceElementsMapping result = TraceElementsMapping.of(mapping);
+    checkTimes(result.get(element(1)));
+    checkTimes(result.get(element(2)), 5);
+  }
+
+  public void testTargetsView() {
+    final Map<TraceElement, List<TraceElement>> mapping = Collections.singletonMap(element(1), Arrays.asList(element(2), element(3)));
+    final List<TraceElement> targets = TraceElementsMapping.of(mapping).get(element(1));
+    assertEquals(2, targets.size());
+    try {
+      targets.get(2);
+      fail("index out of bounds expected");
+    }
+    catch (IndexOutOfBoundsException ignored) {
+    }
+  }
+
+  private static void checkTimes(@NotNull List<TraceElement> elements, int... expectedTimes) {
+    final List<Integer> expected = new ArrayList<>();
+    for (final int time : expectedTimes) {
+      expected.add(time);
+    }
+
+    assertEquals(expected, toTimes(elements));
+  }
+
+  @NotNull
+  private static List<Integer> toTimes(@NotNull List<TraceElement> elements) {
+    final List<Integer> result = new ArrayList<>(elements.size());
+    for (final TraceElement element : elements) {
+      result.add(element.getTime());
+    }
+
+    return result;
+  }
+
+  @NotNull
+  private static TraceElement element(int time) {
+    return new TraceElementImpl(time, null);
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.trace.impl;
+
+import com.intellij.debugger.streams.trace.TraceElement;
+import com.intellij.debugger.streams.trace.TraceInfo;
+import com.intellij.debugger.streams.trace.WorkerThreadProfile;
+import com.intellij.debugger.streams.trace.dsl.impl.java.JavaTypes;
+import com.intellij.debugger.streams.wrapper.StreamCall;
+import com.intellij.debugger.streams.wrapper.impl.IntermediateStreamCallImpl;
+import com.intellij.openapi.util.TextRange;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class WorkerThreadsTimelineTest extends TestCase {
+  private static final List<String> THREAD_NAMES = Arrays.asList("main", "ForkJoinPool.commonPool-worker-1");
+
+  public void testFilterContinuesRun() {
+    // the first thread passes 1 through the filter while the second one takes 2, drops it and takes 4
+    final WorkerThreadsTimeline timeline = createTimeline(Arrays.asList("filter", "toArray"),
+                                                          new int[]{1, 2, 3, 4, 5},
+                                                          new int[]{0, 0, 1, 0, 1},
+                                                          new int[]{0, 1, 0, 1, 1});
+    checkOrder(timeline, 1, 3, 2, 4, 5);
+  }
+
+  public void testSortedStartsNewRuns() {
+    final WorkerThreadsTimeline timeline = createTimeline(Arrays.asList("sorted", "toArray"),
+                                                          new int[]{1, 2, 3, 4, 5, 6},
+                                                          new int[]{0, 0, 0, 1, 1, 1},
+                                                          new int[]{0, 1, 0, 1, 0, 1});
+    checkOrder(timeline, 1, 2, 3, 4, 5, 6);
+  }
+
+  public void testFlatMapContinuesRunWithNextElement() {
+    // the first thread flattens 1 into two elements, both of them go down the chain before the next element of the source
+    final WorkerThreadsTimeline timeline = createTimeline(Arrays.asList("flatMap", "filter", "toArray"),
+                                                          new int[]{1, 2, 3, 4, 5, 6, 7, 8},
+                                                          new int[]{0, 0, 1, 2, 1, 1, 0, 2},
+                                                          new int[]{0, 1, 0, 0, 1, 0, 1, 0});
+    checkOrder(timeline, 1, 3, 4, 6, 8, 2, 5, 7);
+  }
+
+  public void testPassingCallsKeepRun() {
+    final WorkerThreadsTimeline timeline = createTimeline(Arrays.asList("map", "peek", "boxed", "toArray"),
+                                                          new int[]{1, 2, 3, 4, 5, 6, 7, 8},
+                                                          new int[]{0, 0, 1, 1, 2, 2, 3, 3},
+                                                          new int[]{0, 1, 1, 0, 0, 1, 1, 0});
+    checkOrder(timeline, 1, 4, 5, 8, 2, 3, 6, 7);
+  }
+
+  public void testBufferingCallBetweenPassingCalls() {
+    final WorkerThreadsTimeline timeline = createTimeline(Arrays.asList("map", "distinct", "filter", "toArray"),
+                                                          new int[]{1, 2, 3, 4, 5, 6, 7},
+                                                          new int[]{0, 0, 1, 1, 2, 3, 2},
+                                                          new int[]{0, 1, 0, 1, 0, 0, 1});
+    // distinct of a parallel stream buffers elements, so the elements after it start new runs
+    checkOrder(timeline, 1, 3, 2, 4, 5, 6, 7);
+  }
+
+  public void testRunsOrderedByStart() {
+    // the run of the second thread starts first, so its last time goes before all the times of the first thread
+    final WorkerThreadsTimeline timeline = createTimeline(Arrays.asList("map", "toArray"),
+                                                          new int[]{1, 2, 3, 4},
+                                                          new int[]{0, 0, 1, 1},
+                                                          new int[]{1, 0, 0, 1});
+    checkOrder(timeline, 1, 4, 2, 3);
+  }
+
+  public void testUnknownTimesAreSeparateRuns() {
+    final WorkerThreadsTimeline timeline = createTimeline(Arrays.asList("filter", "toArray"),
+                                                          new int[]{1, 3},
+                                                          new int[]{0, 1},
+                                                          new int[]{0, 0});
+    final Map<Integer, Integer> ranks = timeline.rankTimes(new HashSet<>(Arrays.asList(1, 2, 3)));
+    assertEquals(Integer.valueOf(1), ranks.get(1));
+    assertEquals(Integer.valueOf(2), ranks.get(3));
+    assertEquals(Integer.valueOf(3), ranks.get(2));
+  }
+
+  public void testReorderTrace() {
+    final StreamCall call = createCall("filter");
+    final WorkerThreadsTimeline timeline = createTimeline(Arrays.asList("filter", "toArray"),
+                                                          new int[]{1, 2, 3, 4, 5},
+                                                          new int[]{0, 0, 1, 0, 1},
+                                                          new int[]{0, 1, 0, 1, 1});
+    final TraceInfo info = new MyTraceInfo(call, elements(1, 2, 4), elements(3, 5, 6));
+
+    final List<TraceInfo> reordered = timeline.reorder(Collections.singletonList(info));
+    assertEquals(1, reordered.size());
+    final TraceInfo result = reordered.get(0);
+    assertSame(call, result.getCall());
+    assertEquals(Arrays.asList(1, 3, 4), new ArrayList<>(result.getValuesOrderBefore().keySet()));
+    // the time after the last time of the clock is given to the result of the chain, it stays as is
+    assertEquals(Arrays.asList(2, 5, 6), new ArrayList<>(result.getValuesOrderAfter().keySet()));
+
+    assertEquals("main", result.getValuesOrderBefore().get(1).getThreadName());
+    assertEquals("ForkJoinPool.commonPool-worker-1", result.getValuesOrderBefore().get(3).getThreadName());
+    assertEquals("main", result.getValuesOrderAfter().get(2).getThreadName());
+    assertNull(result.getValuesOrderAfter().get(6).getThreadName());
+  }
+
+  public void testThreadProfiles() {
+    final WorkerThreadsTimeline timeline = createTimeline(Arrays.asList("filter", "toArray"),
+                                                          new int[]{1, 2, 3, 4, 5},
+                                                          new int[]{0, 0, 1, 0, 1},
+                                                          new int[]{0, 1, 0, 1, 1});
+    final List<WorkerThreadProfile> profiles = timeline.getThreadProfiles();
+    assertEquals(2, profiles.size());
+    checkProfile(profiles.get(0), "main", 1, 1);
+    checkProfile(profiles.get(1), "ForkJoinPool.commonPool-worker-1", 2, 1);
+  }
+
+  private static void checkOrder(@NotNull WorkerThreadsTimeline timeline, int... expectedOrder) {
+    final Set<Integer> times = new HashSet<>();
+    for (final int time : expectedOrder) {
+      times.add(time);
+    }
+
+    final Map<Integer, Integer> ranks = timeline.rankTimes(times);
+    assertEquals(expectedOrder.length, ranks.size());
+    for (int i = 0; i < expectedOrder.length; i++) {
+      assertEquals("rank of time " + expectedOrder[i], Integer.valueOf(i + 1), ranks.get(expectedOrder[i]));
+    }
+  }
+
+  private static void checkProfile(@NotNull WorkerThreadProfile profile, @NotNull String threadName, int... elements) {
+    assertEquals(threadName, profile.getThreadName());
+    for (int i = 0; i < elements.length; i++) {
+      assertEquals(elements[i], profile.getElements(i));
+    }
+  }
+
+  @NotNull
+  private static WorkerThreadsTimeline createTimeline(@NotNull List<String> callNames,
+                                                      @NotNull int[] times,
+                                                      @NotNull int[] positions,
+                                                      @NotNull int[] threads) {
+    return new WorkerThreadsTimeline(callNames, THREAD_NAMES, times, positions, threads, times[times.length - 1]);
+  }
+
+  @NotNull
+  private static StreamCall createCall(@NotNull String name) {
+    return new IntermediateStreamCallImpl(name, Collections.emptyList(), JavaTypes.INSTANCE.getINT(), JavaTypes.INSTANCE.getINT(),
+                                          TextRange.EMPTY_RANGE);
+  }
+
+  @NotNull
+  private static Map<Integer, TraceElement> elements(int... times) {
+    final Map<Integer, TraceElement> result = new LinkedHashMap<>();
+    for (final int time : times) {
+      result.put(time, new TraceElementImpl(time, null));
+    }
+
+    return result;
+  }
+
+  private static class MyTraceInfo implements TraceInfo {
+    private final StreamCall myCall;
+    private final Map<Integer, TraceElement> myBefore;
+    private final Map<Integer, TraceElement> myAfter;
+
+    MyTraceInfo(@NotNull StreamCall call, @NotNull Map<Integer, TraceElement> before, @NotNull Map<Integer, TraceElement> after) {
+      myCall = call;
+      myBefore = before;
+      myAfter = after;
+    }
+
+    @NotNull
+    @Override
+    public StreamCall getCall() {
+      return myCall;
+    }
+
+    @NotNull
+    @Override
+    public Map<Integer, TraceElement> getValuesOrderBefore() {
+      return myBefore;
+    }
+
+    @NotNull
+    @Override
+    public Map<Integer, TraceElement> getValuesOrderAfter() {
+      return myAfter;
+    }
+
+    @Nullable
+    @Override
+    public Map<TraceElement, List<TraceElement>> getDirectTrace() {
+      return null;
+    }
+
+    @Nullable
+    @Override
+    public Map<TraceElement, List<TraceElement>> getReverseTrace() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.ui.impl;
+
+import com.intellij.debugger.streams.trace.TraceElement;
+import com.intellij.debugger.streams.trace.impl.TraceElementImpl;
+import junit.framework.TestCase;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class PagedTraceElementsTest extends TestCase {
+  private static final List<TraceElement> ELEMENTS =
+    IntStream.range(0, 1200).mapToObj(time -> new TraceElementImpl(time, null)).collect(Collectors.toList());
+
+  public void testSelectLoadedElement() {
+    final PagedTraceElements pages = new PagedTraceElements(ELEMENTS);
+    pages.pageLoaded(500);
+
+    final AtomicInteger runs = new AtomicInteger();
+    assertFalse(pages.request(Collections.singletonList(ELEMENTS.get(499)), runs::incrementAndGet));
+    assertEquals(1, runs.get());
+    assertFalse(pages.pageLoaded(1000));
+    assertEquals(1, runs.get());
+  }
+
+  public void testSelectElementOnUnloadedPage() {
+    final PagedTraceElements pages = new PagedTraceElements(ELEMENTS);
+    pages.pageLoaded(500);
+
+    final AtomicInteger runs = new AtomicInteger();
+    assertFalse(pages.request(ELEMENTS.subList(10, 12), () -> {}));
+    assertTrue(pages.request(ELEMENTS.subList(499, 1001), runs::incrementAndGet));
+    assertEquals(1, runs.get());
+
+    assertTrue(pages.pageLoaded(1000));
+    assertEquals(1, runs.get());
+    assertFalse(pages.pageLoaded(1200));
+    assertEquals(2, runs.get());
+    assertFalse(pages.pageLoaded(1200));
+    assertEquals(2, runs.get());
+  }
+
+  public void testLastRequestWins() {
+    final PagedTraceElements pages = new PagedTraceElements(ELEMENTS);
+    pages.pageLoaded(500);
+
+    final AtomicInteger first = new AtomicInteger();
+    final AtomicInteger second = new AtomicInteger();
+    assertTrue(pages.request(Collections.singletonList(ELEMENTS.get(1100)), first::incrementAndGet));
+    assertFalse(pages.request(Collections.singletonList(ELEMENTS.get(3)), second::incrementAndGet));
+
+    assertFalse(pages.pageLoaded(1000));
+    assertEquals(1, first.get());
+    assertEquals(1, second.get());
+  }
+
+  public void testRequestBeforeFirstPage() {
+    final PagedTraceElements pages = new PagedTraceElements(ELEMENTS);
+
+    final AtomicInteger runs = new AtomicInteger();
+    assertTrue(pages.request(Collections.singletonList(ELEMENTS.get(0)), runs::incrementAndGet));
+    assertFalse(pages.pageLoaded(500));
+    assertEquals(2, runs.get());
+  }
+
+  public void testUnknownElement() {
+    final PagedTraceElements pages = new PagedTraceElements(Collections.emptyList());
+
+    final AtomicInteger runs = new AtomicInteger();
+    assertFalse(pages.request(ELEMENTS.subList(700, 800), runs::incrementAndGet));
+    assertEquals(1, runs.get());
+  }
+}
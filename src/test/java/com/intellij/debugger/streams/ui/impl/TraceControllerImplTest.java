@@ -0,0 +1,170 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.debugger.streams.ui.impl;
+
+import com.intellij.debugger.streams.trace.BidirectionalAwareState;
+import com.intellij.debugger.streams.trace.TraceElement;
+import com.intellij.debugger.streams.trace.impl.TraceElementImpl;
+import com.intellij.debugger.streams.ui.PropagationDirection;
+import com.intellij.debugger.streams.ui.TraceContainer;
+import com.intellij.debugger.streams.ui.ValuesSelectionListener;
+import com.intellij.debugger.streams.wrapper.StreamCall;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * @author Vitaliy.Bibaev
+ */
+public class TraceControllerImplTest extends TestCase {
+  private final List<String> myLog = new ArrayList<>();
+  private final Map<TraceElement, List<TraceElement>> myNext = new HashMap<>();
+  private final Map<TraceElement, List<TraceElement>> myPrev = new HashMap<>();
+
+  private final MyContainer myFirstContainer = new MyContainer("first");
+  private final MyContainer mySecondContainer = new MyContainer("second");
+  private final MyContainer myThirdContainer = new MyContainer("third");
+  private TraceControllerImpl myFirst;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    link(0, 3, 4);
+    link(1, 5);
+    link(3, 6);
+    link(4, 6);
+    link(5, 7);
+
+    myFirst = createController(myFirstContainer, 0, 1, 2);
+    final TraceControllerImpl second = createController(mySecondContainer, 3, 4, 5);
+    final TraceControllerImpl third = createController(myThirdContainer, 6, 7);
+    myFirst.setNextController(second);
+    second.setPreviousController(myFirst);
+    second.setNextController(third);
+    third.setPreviousController(second);
+  }
+
+  public void testHighlightingPropagatedBeforeRepaint() {
+    myFirst.highlightingChanged(Collections.singletonList(new TraceElementImpl(0, null)), PropagationDirection.FORWARD);
+    assertEquals(Arrays.asList("highlight first [0]", "highlight second [3, 4]", "highlight third [6]",
+                               "update first", "update second", "update third"), myLog);
+  }
+
+  public void testSelectionPropagatedBeforeRepaint() {
+    mySecondContainer.mySelectionListener.selectionChanged(Collections.singletonList(new TraceElementImpl(5, null)));
+    assertEquals(Arrays.asList("select second [5]", "highlight third [7]", "highlight first [1]",
+                               "update second", "update third", "update first"), myLog);
+  }
+
+  private void link(int from, int... to) {
+    final TraceElement source = new TraceElementImpl(from, null);
+    for (final int time : to) {
+      final TraceElement target = new TraceElementImpl(time, null);
+      myNext.computeIfAbsent(source, x -> new ArrayList<>()).add(target);
+      myPrev.computeIfAbsent(target, x -> new ArrayList<>()).add(source);
+    }
+  }
+
+  @NotNull
+  private TraceControllerImpl createController(@NotNull MyContainer container, int... times) {
+    final List<TraceElement> trace = Arrays.stream(times).mapToObj(time -> new TraceElementImpl(time, null)).collect(Collectors.toList());
+    final TraceControllerImpl controller = new TraceControllerImpl(new MyState(trace));
+    controller.register(container);
+    return controller;
+  }
+
+  @NotNull
+  private static String format(@NotNull List<TraceElement> elements) {
+    return elements.stream().map(x -> String.valueOf(x.getTime())).collect(Collectors.joining(", ", "[", "]"));
+  }
+
+  private class MyState implements BidirectionalAwareState {
+    private final List<TraceElement> myTrace;
+
+    MyState(@NotNull List<TraceElement> trace) {
+      myTrace = trace;
+    }
+
+    @NotNull
+    @Override
+    public List<TraceElement> getTrace() {
+      return myTrace;
+    }
+
+    @NotNull
+    @Override
+    public StreamCall getNextCall() {
+      throw new UnsupportedOperationException();
+    }
+
+    @NotNull
+    @Override
+    public List<TraceElement> getNextValues(@NotNull TraceElement value) {
+      return myNext.getOrDefault(value, Collections.emptyList());
+    }
+
+    @Override
+    public StreamCall getPrevCall() {
+      throw new UnsupportedOperationException();
+    }
+
+    @NotNull
+    @Override
+    public List<TraceElement> getPrevValues(@NotNull TraceElement value) {
+      return myPrev.getOrDefault(value, Collections.emptyList());
+    }
+  }
+
+  private class MyContainer implements TraceContainer {
+    private final String myName;
+    private ValuesSelectionListener mySelectionListener;
+
+    MyContainer(@NotNull String name) {
+      myName = name;
+    }
+
+    @Override
+    public void highlight(@NotNull List<TraceElement> elements) {
+      myLog.add("highlight " + myName + " " + format(elements));
+    }
+
+    @Override
+    public void select(@NotNull List<TraceElement> elements) {
+      myLog.add("select " + myName + " " + format(elements));
+    }
+
+    @Override
+    public void addSelectionListener(@NotNull ValuesSelectionListener listener) {
+      mySelectionListener = listener;
+    }
+
+    @Override
+    public boolean highlightedExists() {
+      return false;
+    }
+
+    @Override
+    public void updatePresentation() {
+      myLog.add("update " + myName);
+    }
+
+    @Override
+    public void dispose() {
+    }
+  }
+}
@@ -0,0 +1,7 @@
+import java.util.stream.Stream;
+
+public class Baz {
+  public static void bar() {
+<caret>    final long count = Stream.of(1, 2, 3).filter(x -> x > 1).count();
+  }
+}
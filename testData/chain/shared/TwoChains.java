@@ -0,0 +1,7 @@
+import java.util.stream.Stream;
+
+public class Baz {
+  public static void bar() {
+<caret>    final long count = Stream.of(1, 2).count() + Stream.of(3, 4).filter(x -> x > 3).count();
+  }
+}
@@ -0,0 +1,8 @@
+import java.util.stream.IntStream;
+
+public class AbortedInWorkerThread {
+  public static void main(String[] args) {
+    // Breakpoint!
+    final int sum = IntStream.range(0, 100000).parallel().map(x -> x + 1).sum();
+  }
+}
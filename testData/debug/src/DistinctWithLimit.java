@@ -0,0 +1,8 @@
+import java.util.stream.Stream;
+
+public class DistinctWithLimit {
+  public static void main(String[] args) {
+    // Breakpoint!
+    final Object[] result = Stream.of(1, 1, 2, 3, 1).distinct().toArray();
+  }
+}
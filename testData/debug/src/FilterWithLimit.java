@@ -0,0 +1,8 @@
+import java.util.stream.Stream;
+
+public class FilterWithLimit {
+  public static void main(String[] args) {
+    // Breakpoint!
+    final long count = Stream.of(1, 2, 3, 4, 5).filter(x -> x % 2 == 1).count();
+  }
+}
@@ -0,0 +1,8 @@
+import java.util.stream.Stream;
+
+public class FlatMapWithLimit {
+  public static void main(String[] args) {
+    // Breakpoint!
+    final Object[] result = Stream.of(1, 2, 3).flatMap(x -> Stream.of(x, x * 10)).toArray();
+  }
+}
@@ -0,0 +1,8 @@
+import java.util.stream.Stream;
+
+public class InterpretationFailureReleasesValues {
+  public static void main(String[] args) {
+    // Breakpoint!
+    final long count = Stream.of(1, 2, 3).filter(x -> x > 1).count();
+  }
+}
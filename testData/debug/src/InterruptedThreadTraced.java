@@ -0,0 +1,10 @@
+import java.util.stream.IntStream;
+
+public class InterruptedThreadTraced {
+  public static void main(String[] args) {
+    Thread.currentThread().interrupt();
+    // Breakpoint!
+    final long count = IntStream.range(0, 5000).filter(x -> x % 2 == 0).count();
+    System.out.println("interrupted: " + Thread.currentThread().isInterrupted());
+  }
+}
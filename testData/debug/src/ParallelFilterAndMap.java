@@ -0,0 +1,8 @@
+import java.util.stream.IntStream;
+
+public class ParallelFilterAndMap {
+  public static void main(String[] args) {
+    // Breakpoint!
+    final int sum = IntStream.range(0, 1000).parallel().filter(x -> x % 3 == 0).map(x -> x * 2).sum();
+  }
+}
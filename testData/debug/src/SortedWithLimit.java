@@ -0,0 +1,8 @@
+import java.util.stream.Stream;
+
+public class SortedWithLimit {
+  public static void main(String[] args) {
+    // Breakpoint!
+    final Object[] result = Stream.of(5, 5, 1).sorted().toArray();
+  }
+}